@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.io.IOException;
+import lombok.Getter;
+
+/**
+ * The API answered with an error status, or with a body that could not be used. The latter
+ * keeps the response's success status, so it is not retried: the same body would come back.
+ */
+@Getter
+public class ApiException extends IOException
+{
+	private final int statusCode;
+
+	public ApiException(String message, int statusCode)
+	{
+		super(message);
+		this.statusCode = statusCode;
+	}
+
+	public ApiException(String message, int statusCode, Throwable cause)
+	{
+		super(message, cause);
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * Server errors and rate limiting may pass, other errors will fail the same way again
+	 */
+	public boolean isRetryable()
+	{
+		return statusCode >= 500 || statusCode == 429;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+/**
+ * Stops requests to an endpoint while it keeps failing. After enough consecutive failures the
+ * breaker opens and rejects calls for a cooldown, then lets a single trial call through. A
+ * successful trial closes it again, a failed one reopens it with a doubled cooldown.
+ * Thread safe.
+ */
+public class CircuitBreaker
+{
+	public enum State
+	{
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long baseCooldownMillis;
+	private final long maxCooldownMillis;
+
+	// Guarded by this
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long cooldownMillis;
+	private long openedAt;
+	private boolean trialInFlight;
+
+	public CircuitBreaker(int failureThreshold, long baseCooldownMillis, long maxCooldownMillis)
+	{
+		this.failureThreshold = failureThreshold;
+		this.baseCooldownMillis = baseCooldownMillis;
+		this.maxCooldownMillis = maxCooldownMillis;
+		this.cooldownMillis = baseCooldownMillis;
+	}
+
+	/**
+	 * @return true if a call may be made now. Callers must report its outcome.
+	 */
+	public synchronized boolean tryAcquire(long now)
+	{
+		switch (getState(now))
+		{
+			case CLOSED:
+				return true;
+			case HALF_OPEN:
+				if (trialInFlight)
+				{
+					return false;
+				}
+				state = State.HALF_OPEN;
+				trialInFlight = true;
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	public synchronized void onSuccess()
+	{
+		state = State.CLOSED;
+		consecutiveFailures = 0;
+		cooldownMillis = baseCooldownMillis;
+		trialInFlight = false;
+	}
+
+	/**
+	 * The endpoint answered but refused the call, e.g. with a 4xx or a body that did not parse.
+	 * That says nothing about its health either way, so the failure count is kept and a trial
+	 * call is released for the next one.
+	 */
+	public synchronized void onRefused()
+	{
+		trialInFlight = false;
+	}
+
+	/**
+	 * @return true if this failure opened the breaker
+	 */
+	public synchronized boolean onFailure(long now)
+	{
+		if (state == State.HALF_OPEN)
+		{
+			// The trial failed, wait longer before the next one
+			cooldownMillis = Math.min(cooldownMillis * 2, maxCooldownMillis);
+			open(now);
+			return true;
+		}
+
+		consecutiveFailures++;
+		if (state == State.CLOSED && consecutiveFailures >= failureThreshold)
+		{
+			open(now);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * An open breaker reports HALF_OPEN once its cooldown has passed
+	 */
+	public synchronized State getState(long now)
+	{
+		if (state == State.OPEN && now - openedAt >= cooldownMillis)
+		{
+			return State.HALF_OPEN;
+		}
+		return state;
+	}
+
+	/**
+	 * @return milliseconds until a trial call is allowed, 0 if calls are allowed now
+	 */
+	public synchronized long getRetryInMillis(long now)
+	{
+		return state == State.OPEN ? Math.max(0, openedAt + cooldownMillis - now) : 0;
+	}
+
+	private void open(long now)
+	{
+		state = State.OPEN;
+		openedAt = now;
+		trialInFlight = false;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs plugin work on the client thread within a per-tick time budget.
+ * <p>
+ * Tasks can be submitted from any thread and run in submission order. A task is a
+ * {@link BooleanSupplier}, like {@code ClientThread.invokeLater}: returning false means it
+ * stopped early and is resumed on the next tick before anything queued after it.
+ * Long-running tasks should check {@link #hasBudget()} between units of work.
+ */
+@Slf4j
+@Singleton
+public class ClientThreadScheduler
+{
+	private final RuneMessagesConfig config;
+	private final RuneMessagesMetrics metrics;
+
+	private final Queue<BooleanSupplier> submitted = new ConcurrentLinkedQueue<>();
+
+	// Tasks that ran out of budget, only touched on the client thread
+	private final Deque<BooleanSupplier> resumed = new ArrayDeque<>();
+
+	private long deadline;
+	private volatile boolean discardResumed;
+
+	@Inject
+	public ClientThreadScheduler(RuneMessagesConfig config, RuneMessagesMetrics metrics)
+	{
+		this.config = config;
+		this.metrics = metrics;
+	}
+
+	public void submit(Runnable task)
+	{
+		submitted.add(() ->
+		{
+			task.run();
+			return true;
+		});
+	}
+
+	public void submit(BooleanSupplier task)
+	{
+		submitted.add(task);
+	}
+
+	/**
+	 * Apply an action to each item, spreading the work over as many ticks as the budget requires
+	 */
+	public <T> void forEach(List<T> items, Consumer<? super T> action)
+	{
+		if (items.isEmpty())
+		{
+			return;
+		}
+
+		submit(new BooleanSupplier()
+		{
+			private int index;
+
+			@Override
+			public boolean getAsBoolean()
+			{
+				while (index < items.size())
+				{
+					if (!hasBudget())
+					{
+						return false;
+					}
+					action.accept(items.get(index++));
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @return whether the current tick still has time left. Always false outside {@link #drain()}.
+	 */
+	public boolean hasBudget()
+	{
+		return System.nanoTime() < deadline;
+	}
+
+	/**
+	 * Run queued work until it is done or the budget is spent. Must be called on the client thread.
+	 */
+	public void drain()
+	{
+		if (discardResumed)
+		{
+			discardResumed = false;
+			resumed.clear();
+		}
+
+		long budgetNanos = config.clientThreadBudget() * 1_000L;
+		long start = System.nanoTime();
+		deadline = start + budgetNanos;
+
+		while (hasBudget())
+		{
+			BooleanSupplier task = !resumed.isEmpty() ? resumed.pollFirst() : submitted.poll();
+			if (task == null)
+			{
+				break;
+			}
+
+			boolean done;
+			try
+			{
+				done = task.getAsBoolean();
+			}
+			catch (Exception e)
+			{
+				log.warn("Scheduled task failed", e);
+				done = true;
+			}
+
+			if (!done)
+			{
+				// Keep FIFO order: an unfinished task goes back in front of everything after it
+				resumed.addFirst(task);
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+		deadline = 0;
+
+		if (!resumed.isEmpty() || !submitted.isEmpty())
+		{
+			metrics.recordDeferral();
+		}
+		metrics.recordTick(elapsed, elapsed > budgetNanos);
+	}
+
+	/**
+	 * Drop all queued work, e.g. on shutdown. Safe to call from any thread.
+	 */
+	public void clear()
+	{
+		submitted.clear();
+		discardResumed = true;
+	}
+}
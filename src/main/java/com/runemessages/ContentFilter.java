@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Blocklist of words and authors applied to incoming messages. Words are compiled into an
+ * Aho-Corasick automaton, a DFA over the characters the words use, so a message is matched
+ * against all of them in one pass that is linear in its length. Matching ignores case and
+ * finds words anywhere in the text, including inside other words. Authors are matched on
+ * their whole name.
+ * <p>
+ * Immutable, so it can be swapped in while requests are being decoded on other threads.
+ */
+public class ContentFilter
+{
+	public static final ContentFilter EMPTY = compile("", "");
+
+	private static final int ASCII = 128;
+
+	private final Set<String> authors;
+	// Character class of each ASCII character, and of any other character the words use.
+	// Class 0 stands for characters no word contains.
+	private final int[] asciiClasses;
+	private final Map<Character, Integer> otherClasses;
+	private final int classCount;
+	// Transitions from each state, indexed by state * classCount + character class
+	private final int[] transitions;
+	// Whether reaching a state means some word ended there
+	private final boolean[] matches;
+
+	private ContentFilter(Set<String> authors, int[] asciiClasses, Map<Character, Integer> otherClasses,
+		int classCount, int[] transitions, boolean[] matches)
+	{
+		this.authors = authors;
+		this.asciiClasses = asciiClasses;
+		this.otherClasses = otherClasses;
+		this.classCount = classCount;
+		this.transitions = transitions;
+		this.matches = matches;
+	}
+
+	/**
+	 * @param words words or phrases to block, separated by commas or new lines
+	 * @param authors player names to block, separated by commas or new lines
+	 */
+	public static ContentFilter compile(String words, String authors)
+	{
+		Set<String> blockedAuthors = new HashSet<>();
+		for (String author : split(authors))
+		{
+			blockedAuthors.add(normalizeName(author));
+		}
+
+		List<String> patterns = split(words);
+		int[] asciiClasses = new int[ASCII];
+		Map<Character, Integer> otherClasses = new HashMap<>();
+		int classCount = 1;
+		for (String pattern : patterns)
+		{
+			for (int i = 0; i < pattern.length(); i++)
+			{
+				char c = pattern.charAt(i);
+				if (c < ASCII ? asciiClasses[c] == 0 : !otherClasses.containsKey(c))
+				{
+					if (c < ASCII)
+					{
+						asciiClasses[c] = classCount++;
+					}
+					else
+					{
+						otherClasses.put(c, classCount++);
+					}
+				}
+			}
+		}
+
+		// Upper case ASCII shares the class of its lower case letter, saving a case conversion per character
+		for (char c = 'A'; c <= 'Z'; c++)
+		{
+			asciiClasses[c] = asciiClasses[Character.toLowerCase(c)];
+		}
+
+		// Trie of the words, -1 for a missing edge
+		List<int[]> trie = new ArrayList<>();
+		List<Boolean> ends = new ArrayList<>();
+		trie.add(newState(classCount));
+		ends.add(false);
+		for (String pattern : patterns)
+		{
+			int state = 0;
+			for (int i = 0; i < pattern.length(); i++)
+			{
+				int cls = classOf(pattern.charAt(i), asciiClasses, otherClasses);
+				if (trie.get(state)[cls] < 0)
+				{
+					trie.get(state)[cls] = trie.size();
+					trie.add(newState(classCount));
+					ends.add(false);
+				}
+				state = trie.get(state)[cls];
+			}
+			ends.set(state, true);
+		}
+
+		// Breadth first, fill missing edges from the failure links, turning the trie into a DFA
+		int states = trie.size();
+		int[] transitions = new int[states * classCount];
+		boolean[] matches = new boolean[states];
+		int[] failure = new int[states];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for (int cls = 0; cls < classCount; cls++)
+		{
+			int child = trie.get(0)[cls];
+			transitions[cls] = Math.max(child, 0);
+			if (child > 0)
+			{
+				queue.add(child);
+			}
+		}
+		matches[0] = ends.get(0);
+		while (!queue.isEmpty())
+		{
+			int state = queue.poll();
+			matches[state] = ends.get(state) || matches[failure[state]];
+			for (int cls = 0; cls < classCount; cls++)
+			{
+				int child = trie.get(state)[cls];
+				if (child >= 0)
+				{
+					failure[child] = transitions[failure[state] * classCount + cls];
+					transitions[state * classCount + cls] = child;
+					queue.add(child);
+				}
+				else
+				{
+					transitions[state * classCount + cls] = transitions[failure[state] * classCount + cls];
+				}
+			}
+		}
+
+		return new ContentFilter(blockedAuthors, asciiClasses, otherClasses, classCount, transitions, matches);
+	}
+
+	public boolean isEmpty()
+	{
+		return authors.isEmpty() && transitions.length == classCount;
+	}
+
+	/**
+	 * @return true if the message is by a blocked author or contains a blocked word
+	 */
+	public boolean blocks(MessageData message)
+	{
+		if (message.getAuthor() != null && !authors.isEmpty() && authors.contains(normalizeName(message.getAuthor())))
+		{
+			return true;
+		}
+		return message.getMessage() != null && containsWord(message.getMessage());
+	}
+
+	/**
+	 * @return true if the text contains any blocked word, ignoring case
+	 */
+	public boolean containsWord(String text)
+	{
+		int state = 0;
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			int cls = c < ASCII ? asciiClasses[c] : classOf(Character.toLowerCase(c), asciiClasses, otherClasses);
+			state = transitions[state * classCount + cls];
+			if (matches[state])
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove blocked messages from a list
+	 *
+	 * @return the number removed
+	 */
+	public int filter(List<MessageData> messages)
+	{
+		if (isEmpty())
+		{
+			return 0;
+		}
+		int before = messages.size();
+		messages.removeIf(this::blocks);
+		return before - messages.size();
+	}
+
+	private static int classOf(char c, int[] asciiClasses, Map<Character, Integer> otherClasses)
+	{
+		if (c < ASCII)
+		{
+			return asciiClasses[c];
+		}
+		Integer cls = otherClasses.get(c);
+		return cls != null ? cls : 0;
+	}
+
+	private static int[] newState(int classCount)
+	{
+		int[] edges = new int[classCount];
+		Arrays.fill(edges, -1);
+		return edges;
+	}
+
+	private static List<String> split(String list)
+	{
+		List<String> entries = new ArrayList<>();
+		if (list != null)
+		{
+			for (String entry : list.split("[,\n]"))
+			{
+				String trimmed = entry.trim().toLowerCase(Locale.ROOT);
+				if (!trimmed.isEmpty())
+				{
+					entries.add(trimmed);
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Player names may use spaces, non-breaking spaces, underscores or hyphens interchangeably
+	 */
+	private static String normalizeName(String name)
+	{
+		return name.trim().toLowerCase(Locale.ROOT).replace('\u00A0', ' ').replace('_', ' ').replace('-', ' ');
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Record/replay backend. When recording, calls go to a live backend and every result is
+ * appended to a JSON lines file. When replaying, calls are answered from such a file
+ * without any network access, which makes benchmarks and regression runs deterministic.
+ * <p>
+ * Calls are matched on their arguments, excluding the API key. Repeated calls replay
+ * their recorded results in order, and the last one is repeated once they run out.
+ */
+@Slf4j
+public class FileMessageBackend implements MessageBackend
+{
+	private static final Type MESSAGE_LIST = new TypeToken<List<MessageData>>()
+	{
+	}.getType();
+
+	private final Gson gson;
+	private final File file;
+	// Live backend when recording, null when replaying
+	private final MessageBackend delegate;
+	private final Map<String, Deque<JsonObject>> recorded = new HashMap<>();
+	private Writer writer;
+
+	private FileMessageBackend(Gson gson, File file, MessageBackend delegate)
+	{
+		this.gson = gson;
+		this.file = file;
+		this.delegate = delegate;
+	}
+
+	public static FileMessageBackend record(MessageBackend delegate, Gson gson, File file)
+	{
+		return new FileMessageBackend(gson, file, delegate);
+	}
+
+	public static FileMessageBackend replay(Gson gson, File file) throws IOException
+	{
+		FileMessageBackend backend = new FileMessageBackend(gson, file, null);
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))
+		{
+			if (!line.isEmpty())
+			{
+				JsonObject entry = gson.fromJson(line, JsonObject.class);
+				backend.recorded.computeIfAbsent(entry.get("call").getAsString(), k -> new ArrayDeque<>()).add(entry);
+			}
+		}
+		log.debug("Loaded {} recorded calls from {}", backend.recorded.size(), file);
+		return backend;
+	}
+
+	@Override
+	public CompletableFuture<String> register(String username)
+	{
+		return call("register:" + username, String.class, () -> delegate.register(username));
+	}
+
+	@Override
+	public CompletableFuture<Boolean> verifyApiKey(String apiKey)
+	{
+		return call("verify", Boolean.class, () -> delegate.verifyApiKey(apiKey));
+	}
+
+	@Override
+	public CompletableFuture<List<MessageData>> getRegionMessages(int worldId, int regionId)
+	{
+		return call("region:" + worldId + ":" + regionId, MESSAGE_LIST, () -> delegate.getRegionMessages(worldId, regionId));
+	}
+
+	@Override
+	public CompletableFuture<WorldSnapshot> getWorldSnapshot(int worldId, long since)
+	{
+		return call("world:" + worldId + ":" + since, WorldSnapshot.class, () -> delegate.getWorldSnapshot(worldId, since));
+	}
+
+	@Override
+	public CompletableFuture<MessagePage> getAuthorMessagesPage(String apiKey, String cursor, int limit)
+	{
+		return call("author:" + cursor + ":" + limit, MessagePage.class, () -> delegate.getAuthorMessagesPage(apiKey, cursor, limit));
+	}
+
+	@Override
+	public CompletableFuture<MessageData> saveMessage(String apiKey, MessageData draft)
+	{
+		String call = "save:" + draft.getWorldId() + ":" + draft.getRegionId() + ":" + draft.getX() + ":" + draft.getY()
+			+ ":" + draft.getPlane() + ":" + draft.getMessage();
+		return call(call, MessageData.class, () -> delegate.saveMessage(apiKey, draft));
+	}
+
+	@Override
+	public CompletableFuture<Void> deleteMessage(String apiKey, int worldId, int regionId, String messageId)
+	{
+		return call("delete:" + worldId + ":" + regionId + ":" + messageId, Void.class,
+			() -> delegate.deleteMessage(apiKey, worldId, regionId, messageId));
+	}
+
+	@Override
+	public CompletableFuture<Void> rateMessage(String apiKey, MessageData message, boolean thumbsUp)
+	{
+		return call("vote:" + message.getId() + ":" + (thumbsUp ? "up" : "down"), Void.class,
+			() -> delegate.rateMessage(apiKey, message, thumbsUp));
+	}
+
+	@Override
+	public CompletableFuture<Void> reportMessage(String apiKey, MessageData message, String reason)
+	{
+		return call("report:" + message.getId(), Void.class, () -> delegate.reportMessage(apiKey, message, reason));
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		if (writer != null)
+		{
+			try
+			{
+				writer.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Unable to close {}", file, e);
+			}
+			writer = null;
+		}
+	}
+
+	private <T> CompletableFuture<T> call(String call, Type type, Supplier<CompletableFuture<T>> live)
+	{
+		if (delegate == null)
+		{
+			return replay(call, type);
+		}
+		CompletableFuture<T> request = live.get();
+		CompletableFuture<T> recorded = request.whenComplete((result, ex) ->
+		{
+			// A cancelled request, e.g. a hedge that lost, has no result worth replaying
+			if (!(ex instanceof CancellationException))
+			{
+				write(call, result, ex);
+			}
+		});
+		recorded.whenComplete((result, ex) ->
+		{
+			if (recorded.isCancelled())
+			{
+				request.cancel(false);
+			}
+		});
+		return recorded;
+	}
+
+	private synchronized <T> CompletableFuture<T> replay(String call, Type type)
+	{
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Deque<JsonObject> entries = recorded.get(call);
+		if (entries == null || entries.isEmpty())
+		{
+			future.completeExceptionally(new IOException("No recording for " + call));
+			return future;
+		}
+
+		JsonObject entry = entries.size() > 1 ? entries.poll() : entries.peek();
+		if (entry.get("ok").getAsBoolean())
+		{
+			JsonElement result = entry.get("result");
+			future.complete(result == null || result.isJsonNull() ? null : gson.fromJson(result, type));
+		}
+		else
+		{
+			future.completeExceptionally(new IOException(entry.get("error").getAsString()));
+		}
+		return future;
+	}
+
+	private synchronized void write(String call, Object result, Throwable ex)
+	{
+		JsonObject entry = new JsonObject();
+		entry.addProperty("call", call);
+		entry.addProperty("ok", ex == null);
+		if (ex == null)
+		{
+			entry.add("result", result != null ? gson.toJsonTree(result) : JsonNull.INSTANCE);
+		}
+		else
+		{
+			Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+			entry.addProperty("error", String.valueOf(cause.getMessage()));
+		}
+
+		try
+		{
+			if (writer == null)
+			{
+				File dir = file.getParentFile();
+				if (dir != null && !dir.exists() && !dir.mkdirs())
+				{
+					throw new IOException("Unable to create " + dir);
+				}
+				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+			}
+			writer.write(gson.toJson(entry));
+			writer.write('\n');
+			writer.flush();
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to record to {}", file, e);
+		}
+	}
+}
@@ -0,0 +1,654 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * The RuneMessages web API
+ */
+@Slf4j
+public class HttpMessageBackend implements MessageBackend
+{
+	static final String DEFAULT_API_URL = "https://runemessages-api-production.up.railway.app";
+	private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+	private final OkHttpClient httpClient;
+	private final Gson gson;
+	private final RuneMessagesMetrics metrics;
+	private final String apiUrl;
+
+	public HttpMessageBackend(OkHttpClient httpClient, Gson gson, RuneMessagesMetrics metrics, String apiUrl)
+	{
+		this.httpClient = httpClient;
+		this.gson = gson;
+		this.metrics = metrics;
+		this.apiUrl = apiUrl;
+	}
+
+	@Override
+	public CompletableFuture<String> register(String username)
+	{
+		CompletableFuture<String> future = new CompletableFuture<>();
+
+		JsonObject body = new JsonObject();
+		body.addProperty("username", username);
+
+		Request request = new Request.Builder()
+			.url(apiUrl + "/register")
+			.post(RequestBody.create(JSON, gson.toJson(body)))
+			.build();
+
+		httpClient.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.warn("Failed to register: {}", e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) throws IOException
+			{
+				try
+				{
+					if (!response.isSuccessful())
+					{
+						future.completeExceptionally(new ApiException("Registration failed: HTTP " + response.code(), response.code()));
+						return;
+					}
+
+					JsonObject json = parse(response.body().string(), JsonObject.class, response.code());
+					if (json != null && json.has("apiKey"))
+					{
+						future.complete(json.get("apiKey").getAsString());
+					}
+					else
+					{
+						future.completeExceptionally(new ApiException("No API key in response", response.code()));
+					}
+				}
+				catch (ApiException e)
+				{
+					future.completeExceptionally(e);
+				}
+				finally
+				{
+					response.close();
+				}
+			}
+		});
+
+		return future;
+	}
+
+	@Override
+	public CompletableFuture<Boolean> verifyApiKey(String apiKey)
+	{
+		CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+		Request request = new Request.Builder()
+			.url(apiUrl + "/verify")
+			.header("X-API-Key", apiKey)
+			.get()
+			.build();
+
+		httpClient.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.warn("Failed to verify API key: {}", e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response)
+			{
+				response.close();
+				future.complete(response.isSuccessful());
+			}
+		});
+
+		return future;
+	}
+
+	@Override
+	public CompletableFuture<List<MessageData>> getRegionMessages(int worldId, int regionId)
+	{
+		CompletableFuture<List<MessageData>> future = new CompletableFuture<>();
+
+		String url = apiUrl + "/messages?worldId=" + worldId + "&regionId=" + regionId;
+
+		Request request = new Request.Builder()
+			.url(url)
+			.get()
+			.build();
+
+		// Cancelling the future cancels the request, e.g. when a hedged request lost
+		Call httpCall = httpClient.newCall(request);
+		future.whenComplete((messages, ex) ->
+		{
+			if (future.isCancelled())
+			{
+				httpCall.cancel();
+			}
+		});
+
+		httpCall.enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				if (call.isCanceled())
+				{
+					return;
+				}
+				log.warn("Failed to fetch messages for region {}: {}", regionId, e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) throws IOException
+			{
+				try
+				{
+					if (!response.isSuccessful())
+					{
+						future.completeExceptionally(new ApiException("Failed to fetch messages: HTTP " + response.code(), response.code()));
+						return;
+					}
+
+					String responseBody = response.body().string();
+					long parseStart = System.nanoTime();
+					List<MessageData> messages;
+					try
+					{
+						messages = parseMessageArray(responseBody);
+					}
+					catch (JsonParseException e)
+					{
+						future.completeExceptionally(new ApiException("Invalid region response: " + e.getMessage(), response.code(), e));
+						return;
+					}
+					metrics.recordParse(System.nanoTime() - parseStart, responseBody.length());
+					log.debug("Fetched {} messages for region {}", messages.size(), regionId);
+					future.complete(messages);
+				}
+				finally
+				{
+					response.close();
+				}
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * The snapshot is served gzip compressed; OkHttp asks for and decompresses it transparently
+	 */
+	@Override
+	public CompletableFuture<WorldSnapshot> getWorldSnapshot(int worldId, long since)
+	{
+		CompletableFuture<WorldSnapshot> future = new CompletableFuture<>();
+
+		String url = apiUrl + "/messages/world/" + worldId + "?since=" + since;
+
+		Request request = new Request.Builder()
+			.url(url)
+			.get()
+			.build();
+
+		httpClient.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.warn("Failed to fetch snapshot of world {}: {}", worldId, e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) throws IOException
+			{
+				try
+				{
+					if (!response.isSuccessful())
+					{
+						future.completeExceptionally(new ApiException("Failed to fetch world snapshot: HTTP " + response.code(), response.code()));
+						return;
+					}
+
+					String responseBody = response.body().string();
+					long parseStart = System.nanoTime();
+					WorldSnapshot snapshot = parseWorldSnapshot(responseBody);
+					metrics.recordParse(System.nanoTime() - parseStart, responseBody.length());
+					if (snapshot == null)
+					{
+						future.completeExceptionally(new ApiException("Invalid world snapshot", response.code()));
+						return;
+					}
+					log.debug("Fetched {} snapshot of world {} with {} messages, {} deleted (version {})",
+						snapshot.isFull() ? "full" : "incremental", worldId, snapshot.getMessages().size(),
+						snapshot.getDeleted().size(), snapshot.getVersion());
+					future.complete(snapshot);
+				}
+				finally
+				{
+					response.close();
+				}
+			}
+		});
+
+		return future;
+	}
+
+	@Override
+	public CompletableFuture<MessagePage> getAuthorMessagesPage(String apiKey, String cursor, int limit)
+	{
+		CompletableFuture<MessagePage> future = new CompletableFuture<>();
+
+		HttpUrl.Builder urlBuilder = HttpUrl.parse(apiUrl + "/messages/mine").newBuilder()
+			.addQueryParameter("limit", String.valueOf(limit));
+		if (cursor != null)
+		{
+			urlBuilder.addQueryParameter("cursor", cursor);
+		}
+		HttpUrl url = urlBuilder.build();
+		log.debug("Fetching author messages page from: {}", url);
+
+		Request request = new Request.Builder()
+			.url(url)
+			.header("X-API-Key", apiKey)
+			.get()
+			.build();
+
+		httpClient.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.warn("Failed to fetch author messages: {}", e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) throws IOException
+			{
+				try
+				{
+					if (!response.isSuccessful())
+					{
+						log.warn("getAuthorMessagesPage failed: HTTP {}", response.code());
+						future.completeExceptionally(new ApiException("HTTP " + response.code(), response.code()));
+						return;
+					}
+
+					String responseBody = response.body().string();
+					long parseStart = System.nanoTime();
+					MessagePage page = parseMessagePage(responseBody);
+					metrics.recordParse(System.nanoTime() - parseStart, responseBody.length());
+					log.debug("Parsed {} messages from /messages/mine (more: {})", page.getMessages().size(), page.hasMore());
+					future.complete(page);
+				}
+				finally
+				{
+					response.close();
+				}
+			}
+		});
+
+		return future;
+	}
+
+	@Override
+	public CompletableFuture<MessageData> saveMessage(String apiKey, MessageData draft)
+	{
+		CompletableFuture<MessageData> future = new CompletableFuture<>();
+
+		JsonObject body = new JsonObject();
+		body.addProperty("worldId", draft.getWorldId());
+		body.addProperty("regionId", draft.getRegionId());
+		body.addProperty("message", draft.getMessage());
+		body.addProperty("x", draft.getX());
+		body.addProperty("y", draft.getY());
+		body.addProperty("plane", draft.getPlane());
+		body.addProperty("modelId", draft.getModelId());
+
+		Request request = new Request.Builder()
+			.url(apiUrl + "/messages")
+			.header("X-API-Key", apiKey)
+			.post(RequestBody.create(JSON, gson.toJson(body)))
+			.build();
+
+		httpClient.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.warn("Failed to save message: {}", e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) throws IOException
+			{
+				try
+				{
+					String responseBody = response.body().string();
+
+					if (!response.isSuccessful())
+					{
+						future.completeExceptionally(errorFrom(responseBody, response.code(), "Unknown error"));
+						return;
+					}
+
+					MessageData data = parse(responseBody, MessageData.class, response.code());
+					log.debug("Saved message '{}' by {} at region {}", draft.getMessage(), draft.getAuthor(), draft.getRegionId());
+					future.complete(data);
+				}
+				catch (ApiException e)
+				{
+					future.completeExceptionally(e);
+				}
+				finally
+				{
+					response.close();
+				}
+			}
+		});
+
+		return future;
+	}
+
+	@Override
+	public CompletableFuture<Void> deleteMessage(String apiKey, int worldId, int regionId, String messageId)
+	{
+		CompletableFuture<Void> future = new CompletableFuture<>();
+
+		String url = apiUrl + "/messages/" + worldId + "/" + regionId + "/" + messageId;
+
+		Request request = new Request.Builder()
+			.url(url)
+			.header("X-API-Key", apiKey)
+			.delete()
+			.build();
+
+		httpClient.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.warn("Failed to delete message: {}", e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response)
+			{
+				response.close();
+				if (response.isSuccessful())
+				{
+					log.debug("Deleted message {}", messageId);
+					future.complete(null);
+				}
+				else
+				{
+					future.completeExceptionally(new ApiException("HTTP " + response.code(), response.code()));
+				}
+			}
+		});
+
+		return future;
+	}
+
+	@Override
+	public CompletableFuture<Void> rateMessage(String apiKey, MessageData message, boolean thumbsUp)
+	{
+		JsonObject body = new JsonObject();
+		body.addProperty("vote", thumbsUp ? "up" : "down");
+
+		return postMessageAction(apiKey, message, "vote", body, "Vote failed")
+			.thenRun(() -> log.debug("Voted {} on message {}", thumbsUp ? "up" : "down", message.getId()));
+	}
+
+	@Override
+	public CompletableFuture<Void> reportMessage(String apiKey, MessageData message, String reason)
+	{
+		JsonObject body = new JsonObject();
+		body.addProperty("reason", reason);
+
+		return postMessageAction(apiKey, message, "report", body, "Report failed")
+			.thenRun(() -> log.debug("Reported message {}", message.getId()));
+	}
+
+	private CompletableFuture<Void> postMessageAction(String apiKey, MessageData message, String action, JsonObject body, String defaultError)
+	{
+		CompletableFuture<Void> future = new CompletableFuture<>();
+
+		String url = apiUrl + "/messages/" + message.getWorldId() + "/" + message.getRegionId() + "/" + message.getId() + "/" + action;
+
+		Request request = new Request.Builder()
+			.url(url)
+			.header("X-API-Key", apiKey)
+			.post(RequestBody.create(JSON, gson.toJson(body)))
+			.build();
+
+		httpClient.newCall(request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				log.warn("Failed to send {} for message {}: {}", action, message.getId(), e.getMessage());
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) throws IOException
+			{
+				try
+				{
+					if (response.isSuccessful())
+					{
+						future.complete(null);
+					}
+					else
+					{
+						future.completeExceptionally(errorFrom(response.body().string(), response.code(), defaultError));
+					}
+				}
+				finally
+				{
+					response.close();
+				}
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * The API reports failures as {"error": "..."}, fall back to the status code otherwise
+	 */
+	private ApiException errorFrom(String responseBody, int code, String defaultError)
+	{
+		try
+		{
+			JsonObject errorJson = gson.fromJson(responseBody, JsonObject.class);
+			return new ApiException(errorJson.has("error") ? errorJson.get("error").getAsString() : defaultError, code);
+		}
+		catch (Exception e)
+		{
+			return new ApiException("HTTP " + code, code);
+		}
+	}
+
+	/**
+	 * Parse a page of author messages. Older API versions return a bare array with
+	 * every message, which is treated as a single, final page.
+	 */
+	private MessagePage parseMessagePage(String json)
+	{
+		if (json == null || json.isEmpty() || json.equals("null"))
+		{
+			return MessagePage.EMPTY;
+		}
+
+		try
+		{
+			JsonElement root = gson.fromJson(json, JsonElement.class);
+			if (root == null || root.isJsonNull())
+			{
+				return MessagePage.EMPTY;
+			}
+			if (root.isJsonArray())
+			{
+				return new MessagePage(parseMessageArray(root.getAsJsonArray()), null);
+			}
+
+			JsonObject object = root.getAsJsonObject();
+			List<MessageData> messages = object.has("messages") && object.get("messages").isJsonArray()
+				? parseMessageArray(object.getAsJsonArray("messages"))
+				: new ArrayList<>();
+			String nextCursor = object.has("nextCursor") && !object.get("nextCursor").isJsonNull()
+				? object.get("nextCursor").getAsString()
+				: null;
+			return new MessagePage(messages, nextCursor);
+		}
+		catch (Exception e)
+		{
+			log.warn("Failed to parse message page: {}", e.getMessage());
+			return MessagePage.EMPTY;
+		}
+	}
+
+	/**
+	 * Parse {"version": n, "full": bool, "messages": [...], "deleted": [...]}
+	 *
+	 * @return null if the body is not a snapshot
+	 */
+	private WorldSnapshot parseWorldSnapshot(String json)
+	{
+		try
+		{
+			JsonObject object = gson.fromJson(json, JsonObject.class);
+			if (object == null || !object.has("version"))
+			{
+				return null;
+			}
+
+			List<MessageData> messages = object.has("messages") && object.get("messages").isJsonArray()
+				? parseMessageArray(object.getAsJsonArray("messages"))
+				: new ArrayList<>();
+			List<String> deleted = new ArrayList<>();
+			if (object.has("deleted") && object.get("deleted").isJsonArray())
+			{
+				for (JsonElement id : object.getAsJsonArray("deleted"))
+				{
+					deleted.add(id.getAsString());
+				}
+			}
+			boolean full = !object.has("full") || object.get("full").getAsBoolean();
+			return new WorldSnapshot(messages, deleted, object.get("version").getAsLong(), full);
+		}
+		catch (Exception e)
+		{
+			log.warn("Failed to parse world snapshot: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Parse a successful response body
+	 *
+	 * @throws ApiException if the body is not what was asked for, which is not retried
+	 */
+	private <T> T parse(String json, Class<T> type, int code) throws ApiException
+	{
+		try
+		{
+			return gson.fromJson(json, type);
+		}
+		catch (JsonParseException e)
+		{
+			throw new ApiException("Invalid response: " + e.getMessage(), code, e);
+		}
+	}
+
+	/**
+	 * A body that is not an array fails as a whole, a single malformed message is skipped
+	 *
+	 * @throws JsonParseException if the body is not a JSON array
+	 */
+	private List<MessageData> parseMessageArray(String json)
+	{
+		if (json == null || json.isEmpty() || json.equals("null"))
+		{
+			return new ArrayList<>();
+		}
+		JsonArray array = gson.fromJson(json, JsonArray.class);
+		return array != null ? parseMessageArray(array) : new ArrayList<>();
+	}
+
+	private List<MessageData> parseMessageArray(JsonArray array)
+	{
+		List<MessageData> messages = new ArrayList<>(array.size());
+		for (JsonElement element : array)
+		{
+			try
+			{
+				MessageData msg = gson.fromJson(element, MessageData.class);
+				if (msg != null)
+				{
+					messages.add(msg);
+				}
+			}
+			catch (Exception e)
+			{
+				log.warn("Failed to parse message: {}", e.getMessage());
+			}
+		}
+		return messages;
+	}
+}
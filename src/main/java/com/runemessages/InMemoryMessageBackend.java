@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Backend that keeps everything in memory, for playing offline and for tests.
+ * Mirrors the API's rules closely enough for the plugin: one vote per account and
+ * message, authors can only delete their own messages, and reported messages are
+ * hidden after enough reports. Any API key is accepted, so an existing account keeps
+ * working offline. Nothing survives a restart.
+ */
+public class InMemoryMessageBackend implements MessageBackend
+{
+	private static final int REPORTS_TO_HIDE = 5;
+
+	// Guarded by this
+	private final Map<String, String> ownerKeys = new HashMap<>();
+	private final Map<Long, List<MessageData>> regions = new HashMap<>();
+	private final Map<String, Integer> reportCounts = new HashMap<>();
+	private final Set<String> votes = new HashSet<>();
+	private long nextId = 1;
+	// Bumped by every change, used as the world snapshot version
+	private long version = 1;
+
+	@Override
+	public synchronized CompletableFuture<String> register(String username)
+	{
+		return CompletableFuture.completedFuture("local-" + UUID.randomUUID());
+	}
+
+	@Override
+	public synchronized CompletableFuture<Boolean> verifyApiKey(String apiKey)
+	{
+		return CompletableFuture.completedFuture(apiKey != null && !apiKey.isEmpty());
+	}
+
+	@Override
+	public synchronized CompletableFuture<List<MessageData>> getRegionMessages(int worldId, int regionId)
+	{
+		List<MessageData> visible = new ArrayList<>();
+		for (MessageData message : regions.getOrDefault(RegionCache.key(worldId, regionId), new ArrayList<>()))
+		{
+			if (reportCounts.getOrDefault(message.getId(), 0) < REPORTS_TO_HIDE)
+			{
+				visible.add(copy(message));
+			}
+		}
+		return CompletableFuture.completedFuture(visible);
+	}
+
+	/**
+	 * Changes are not tracked, so anything but an up to date version gets a full snapshot
+	 */
+	@Override
+	public synchronized CompletableFuture<WorldSnapshot> getWorldSnapshot(int worldId, long since)
+	{
+		if (since == version)
+		{
+			return CompletableFuture.completedFuture(new WorldSnapshot(new ArrayList<>(), new ArrayList<>(), version, false));
+		}
+
+		List<MessageData> visible = new ArrayList<>();
+		for (List<MessageData> messages : regions.values())
+		{
+			for (MessageData message : messages)
+			{
+				if (message.getWorldId() == worldId && reportCounts.getOrDefault(message.getId(), 0) < REPORTS_TO_HIDE)
+				{
+					visible.add(copy(message));
+				}
+			}
+		}
+		return CompletableFuture.completedFuture(new WorldSnapshot(visible, new ArrayList<>(), version, true));
+	}
+
+	@Override
+	public synchronized CompletableFuture<MessagePage> getAuthorMessagesPage(String apiKey, String cursor, int limit)
+	{
+		List<MessageData> own = new ArrayList<>();
+		for (List<MessageData> messages : regions.values())
+		{
+			for (MessageData message : messages)
+			{
+				if (apiKey.equals(ownerKeys.get(message.getId())))
+				{
+					own.add(copy(message));
+				}
+			}
+		}
+		own.sort(Comparator.comparingLong(MessageData::getTimestamp).reversed());
+
+		// The cursor is simply the offset of the next page
+		int from = cursor != null ? Integer.parseInt(cursor) : 0;
+		int to = Math.min(own.size(), from + limit);
+		String nextCursor = to < own.size() ? String.valueOf(to) : null;
+		return CompletableFuture.completedFuture(new MessagePage(new ArrayList<>(own.subList(Math.min(from, to), to)), nextCursor));
+	}
+
+	@Override
+	public synchronized CompletableFuture<MessageData> saveMessage(String apiKey, MessageData draft)
+	{
+		MessageData message = copy(draft);
+		message.setId("local-" + nextId++);
+		message.setTimestamp(System.currentTimeMillis());
+		ownerKeys.put(message.getId(), apiKey);
+		version++;
+		regions.computeIfAbsent(RegionCache.key(message.getWorldId(), message.getRegionId()), k -> new ArrayList<>()).add(message);
+		return CompletableFuture.completedFuture(copy(message));
+	}
+
+	@Override
+	public synchronized CompletableFuture<Void> deleteMessage(String apiKey, int worldId, int regionId, String messageId)
+	{
+		List<MessageData> messages = regions.get(RegionCache.key(worldId, regionId));
+		if (messages == null || !apiKey.equals(ownerKeys.get(messageId))
+			|| !messages.removeIf(m -> m.getId().equals(messageId)))
+		{
+			return failed("Message not found", 404);
+		}
+		ownerKeys.remove(messageId);
+		version++;
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Override
+	public synchronized CompletableFuture<Void> rateMessage(String apiKey, MessageData message, boolean thumbsUp)
+	{
+		MessageData stored = find(message);
+		if (stored == null)
+		{
+			return failed("Message not found", 404);
+		}
+		if (!votes.add(apiKey + ":" + stored.getId()))
+		{
+			return failed("Already voted", 409);
+		}
+
+		if (thumbsUp)
+		{
+			stored.setThumbsUp(stored.getThumbsUp() + 1);
+		}
+		else
+		{
+			stored.setThumbsDown(stored.getThumbsDown() + 1);
+		}
+		version++;
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Override
+	public synchronized CompletableFuture<Void> reportMessage(String apiKey, MessageData message, String reason)
+	{
+		MessageData stored = find(message);
+		if (stored == null)
+		{
+			return failed("Message not found", 404);
+		}
+		reportCounts.merge(stored.getId(), 1, Integer::sum);
+		version++;
+		return CompletableFuture.completedFuture(null);
+	}
+
+	private MessageData find(MessageData message)
+	{
+		for (MessageData stored : regions.getOrDefault(RegionCache.key(message.getWorldId(), message.getRegionId()), new ArrayList<>()))
+		{
+			if (stored.getId().equals(message.getId()))
+			{
+				return stored;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Callers get copies, so their changes do not leak into the stored messages
+	 */
+	private static MessageData copy(MessageData message)
+	{
+		return MessageData.builder()
+			.id(message.getId())
+			.author(message.getAuthor())
+			.message(message.getMessage())
+			.x(message.getX())
+			.y(message.getY())
+			.plane(message.getPlane())
+			.worldId(message.getWorldId())
+			.regionId(message.getRegionId())
+			.timestamp(message.getTimestamp())
+			.modelId(message.getModelId())
+			.thumbsUp(message.getThumbsUp())
+			.thumbsDown(message.getThumbsDown())
+			.reported(message.isReported())
+			.build();
+	}
+
+	/**
+	 * Fail the way the API does, with a client error status that is not retried
+	 */
+	private static <T> CompletableFuture<T> failed(String error, int statusCode)
+	{
+		CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(new ApiException(error, statusCode));
+		return future;
+	}
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persistent set of message ids the player has interacted with, e.g. voted on or reported.
+ * <p>
+ * Ids are stored as 64-bit hashes in an append-only file. In memory they are kept as a
+ * sorted array plus a small unsorted buffer of recent additions, fronted by a bloom filter
+ * so most lookups for unseen messages never touch the arrays. The file is read on first
+ * use, and once it holds more than the entry cap the oldest entries are dropped.
+ * Only used on the client thread.
+ */
+@Slf4j
+public class InteractionHistory
+{
+	private static final int PENDING_SIZE = 256;
+	private static final int BLOOM_BITS_PER_ENTRY = 10;
+	private static final int BLOOM_HASHES = 3;
+
+	private final File file;
+	private final int maxEntries;
+
+	private boolean loaded;
+	private long[] sorted = new long[0];
+	private final long[] pending = new long[PENDING_SIZE];
+	private int pendingCount;
+	private long[] bloom;
+	private int bloomMask;
+	// Entries in the file, checked against the cap to trigger compaction
+	private int fileEntries;
+
+	public InteractionHistory(File file, int maxEntries)
+	{
+		this.file = file;
+		this.maxEntries = maxEntries;
+	}
+
+	public boolean contains(String messageId)
+	{
+		ensureLoaded();
+		return contains(hash(messageId));
+	}
+
+	/**
+	 * Record an interaction
+	 *
+	 * @return false if the message was already recorded
+	 */
+	public boolean add(String messageId)
+	{
+		ensureLoaded();
+		long h = hash(messageId);
+		if (contains(h))
+		{
+			return false;
+		}
+
+		insert(h);
+		append(h);
+		if (fileEntries > maxEntries)
+		{
+			compact();
+		}
+		return true;
+	}
+
+	public int size()
+	{
+		ensureLoaded();
+		return sorted.length + pendingCount;
+	}
+
+	/**
+	 * @return approximate heap used by the in-memory index, in bytes
+	 */
+	public long estimateBytes()
+	{
+		return (long) (sorted.length + pending.length) * Long.BYTES
+			+ (bloom != null ? (long) bloom.length * Long.BYTES : 0);
+	}
+
+	private boolean contains(long h)
+	{
+		if (!mightContain(h))
+		{
+			return false;
+		}
+		for (int i = 0; i < pendingCount; i++)
+		{
+			if (pending[i] == h)
+			{
+				return true;
+			}
+		}
+		return Arrays.binarySearch(sorted, h) >= 0;
+	}
+
+	private void insert(long h)
+	{
+		if (pendingCount == pending.length)
+		{
+			mergePending();
+		}
+		pending[pendingCount++] = h;
+		addToBloom(h);
+	}
+
+	private void mergePending()
+	{
+		long[] merged = Arrays.copyOf(sorted, sorted.length + pendingCount);
+		System.arraycopy(pending, 0, merged, sorted.length, pendingCount);
+		Arrays.sort(merged);
+		sorted = merged;
+		pendingCount = 0;
+	}
+
+	private void ensureLoaded()
+	{
+		if (loaded)
+		{
+			return;
+		}
+		loaded = true;
+
+		long[] entries = readFile();
+		fileEntries = entries.length;
+		if (entries.length > maxEntries)
+		{
+			compact(entries);
+			return;
+		}
+		rebuild(entries);
+	}
+
+	private void rebuild(long[] entries)
+	{
+		long[] copy = entries.clone();
+		Arrays.sort(copy);
+
+		// Collapse duplicates written by earlier sessions
+		int unique = 0;
+		for (int i = 0; i < copy.length; i++)
+		{
+			if (unique == 0 || copy[unique - 1] != copy[i])
+			{
+				copy[unique++] = copy[i];
+			}
+		}
+		sorted = Arrays.copyOf(copy, unique);
+		pendingCount = 0;
+
+		int bits = Integer.highestOneBit(Math.max(maxEntries * BLOOM_BITS_PER_ENTRY, 64) - 1) << 1;
+		bloom = new long[bits >>> 6];
+		bloomMask = bits - 1;
+		for (long h : sorted)
+		{
+			addToBloom(h);
+		}
+	}
+
+	private void compact()
+	{
+		compact(readFile());
+	}
+
+	/**
+	 * Keep the newest three quarters of the cap, so compaction does not run on every add
+	 */
+	private void compact(long[] entries)
+	{
+		int keep = Math.min(entries.length, maxEntries - maxEntries / 4);
+		long[] newest = Arrays.copyOfRange(entries, entries.length - keep, entries.length);
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+		{
+			for (long h : newest)
+			{
+				out.writeLong(h);
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to compact {}", file, e);
+		}
+
+		fileEntries = newest.length;
+		rebuild(newest);
+	}
+
+	private long[] readFile()
+	{
+		if (!file.exists())
+		{
+			return new long[0];
+		}
+
+		int count = (int) (file.length() / Long.BYTES);
+		long[] entries = new long[count];
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			for (int i = 0; i < count; i++)
+			{
+				entries[i] = in.readLong();
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to read {}", file, e);
+			return new long[0];
+		}
+		return entries;
+	}
+
+	private void append(long h)
+	{
+		File dir = file.getParentFile();
+		if (dir != null && !dir.exists() && !dir.mkdirs())
+		{
+			log.warn("Unable to create {}", dir);
+			return;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true)))
+		{
+			out.writeLong(h);
+			fileEntries++;
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to write {}", file, e);
+		}
+	}
+
+	private boolean mightContain(long h)
+	{
+		int h1 = (int) h;
+		int h2 = (int) (h >>> 32);
+		for (int i = 0; i < BLOOM_HASHES; i++)
+		{
+			int bit = (h1 + i * h2) & bloomMask;
+			if ((bloom[bit >>> 6] & (1L << bit)) == 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addToBloom(long h)
+	{
+		int h1 = (int) h;
+		int h2 = (int) (h >>> 32);
+		for (int i = 0; i < BLOOM_HASHES; i++)
+		{
+			int bit = (h1 + i * h2) & bloomMask;
+			bloom[bit >>> 6] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * 64-bit FNV-1a over the id's characters
+	 */
+	static long hash(String id)
+	{
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < id.length(); i++)
+		{
+			h ^= id.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+}
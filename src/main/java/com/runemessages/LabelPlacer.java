@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame screen-space label placement. Candidate labels are ranked by vote score and
+ * distance, then placed greedily, skipping any that would overlap a label already placed.
+ * Labels entirely off the canvas are dropped when added, so they do not use up the limit.
+ * Overlap tests only look at labels in the same cells of a uniform spatial hash.
+ * <p>
+ * All buffers are reused between frames, so placement does not allocate once they have grown
+ * to the frame's candidate count.
+ *
+ * @param <T> payload carried with each label
+ */
+public class LabelPlacer<T>
+{
+	private static final int CELL_SIZE = 64;
+	// Sort keys hold the candidate index in their low bits
+	private static final int INDEX_BITS = 20;
+	private static final int MAX_CANDIDATES = 1 << INDEX_BITS;
+	private static final int MAX_SORT_DISTANCE = (1 << (32 - INDEX_BITS)) - 1;
+
+	// Candidates, indexed by insertion order
+	private Object[] payloads = new Object[32];
+	private int[] left = new int[32];
+	private int[] top = new int[32];
+	private int[] width = new int[32];
+	private int[] height = new int[32];
+	private int[] score = new int[32];
+	private int[] distance = new int[32];
+	private long[] sortKeys = new long[32];
+	private int count;
+	private int canvasWidth;
+	private int canvasHeight;
+
+	// Placed labels, as candidate indices
+	private int[] placed = new int[32];
+	private int placedCount;
+
+	// Spatial hash: per-cell linked lists of placed labels
+	private int[] cellHead = new int[0];
+	private int[] entryLabel = new int[64];
+	private int[] entryNext = new int[64];
+	private int entryCount;
+	private int columns;
+	private int rows;
+
+	/**
+	 * Start a new frame
+	 */
+	public void reset(int canvasWidth, int canvasHeight)
+	{
+		Arrays.fill(payloads, 0, count, null);
+		count = 0;
+		placedCount = 0;
+		entryCount = 0;
+		this.canvasWidth = canvasWidth;
+		this.canvasHeight = canvasHeight;
+
+		columns = Math.max(1, (canvasWidth + CELL_SIZE - 1) / CELL_SIZE);
+		rows = Math.max(1, (canvasHeight + CELL_SIZE - 1) / CELL_SIZE);
+		int cells = columns * rows;
+		if (cellHead.length < cells)
+		{
+			cellHead = new int[cells];
+		}
+		Arrays.fill(cellHead, 0, cells, -1);
+	}
+
+	/**
+	 * Add a candidate label by its screen bounds, ignored if none of it is on the canvas
+	 */
+	public void add(T payload, int x, int y, int w, int h, int labelScore, int labelDistance)
+	{
+		if (x >= canvasWidth || y >= canvasHeight || x + w <= 0 || y + h <= 0 || count == MAX_CANDIDATES)
+		{
+			return;
+		}
+
+		if (count == payloads.length)
+		{
+			int size = count * 2;
+			payloads = Arrays.copyOf(payloads, size);
+			left = Arrays.copyOf(left, size);
+			top = Arrays.copyOf(top, size);
+			width = Arrays.copyOf(width, size);
+			height = Arrays.copyOf(height, size);
+			score = Arrays.copyOf(score, size);
+			distance = Arrays.copyOf(distance, size);
+			sortKeys = Arrays.copyOf(sortKeys, size);
+			placed = Arrays.copyOf(placed, size);
+		}
+
+		payloads[count] = payload;
+		left[count] = x;
+		top[count] = y;
+		width[count] = w;
+		height[count] = h;
+		score[count] = labelScore;
+		distance[count] = labelDistance;
+		count++;
+	}
+
+	/**
+	 * Place up to maxLabels non-overlapping labels, best first
+	 *
+	 * @return number of labels placed
+	 */
+	public int place(int maxLabels)
+	{
+		sortCandidates();
+
+		for (int i = 0; i < count && placedCount < maxLabels; i++)
+		{
+			int label = (int) sortKeys[i] & (MAX_CANDIDATES - 1);
+			int firstColumn = clamp(left[label] / CELL_SIZE, columns);
+			int lastColumn = clamp((left[label] + width[label]) / CELL_SIZE, columns);
+			int firstRow = clamp(top[label] / CELL_SIZE, rows);
+			int lastRow = clamp((top[label] + height[label]) / CELL_SIZE, rows);
+
+			if (overlapsPlaced(label, firstColumn, lastColumn, firstRow, lastRow))
+			{
+				continue;
+			}
+
+			placed[placedCount++] = label;
+			for (int row = firstRow; row <= lastRow; row++)
+			{
+				for (int column = firstColumn; column <= lastColumn; column++)
+				{
+					addEntry(row * columns + column, label);
+				}
+			}
+		}
+
+		return placedCount;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T getPayload(int placedIndex)
+	{
+		return (T) payloads[placed[placedIndex]];
+	}
+
+	public int getLeft(int placedIndex)
+	{
+		return left[placed[placedIndex]];
+	}
+
+	public int getTop(int placedIndex)
+	{
+		return top[placed[placedIndex]];
+	}
+
+	public int getWidth(int placedIndex)
+	{
+		return width[placed[placedIndex]];
+	}
+
+	private boolean overlapsPlaced(int label, int firstColumn, int lastColumn, int firstRow, int lastRow)
+	{
+		for (int row = firstRow; row <= lastRow; row++)
+		{
+			for (int column = firstColumn; column <= lastColumn; column++)
+			{
+				for (int e = cellHead[row * columns + column]; e != -1; e = entryNext[e])
+				{
+					int other = entryLabel[e];
+					if (left[label] < left[other] + width[other] && left[other] < left[label] + width[label]
+						&& top[label] < top[other] + height[other] && top[other] < top[label] + height[label])
+					{
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private void addEntry(int cell, int label)
+	{
+		if (entryCount == entryLabel.length)
+		{
+			entryLabel = Arrays.copyOf(entryLabel, entryCount * 2);
+			entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+		}
+		entryLabel[entryCount] = label;
+		entryNext[entryCount] = cellHead[cell];
+		cellHead[cell] = entryCount++;
+	}
+
+	/**
+	 * Sort the candidates highest score first, then nearest, then in the order they were added.
+	 * Each is packed into one long that sorts ascending in that order, so a primitive sort does
+	 * the work without comparators or boxing.
+	 */
+	private void sortCandidates()
+	{
+		for (int i = 0; i < count; i++)
+		{
+			// Flipping all bits but the sign turns the descending signed score into an ascending unsigned one
+			long rank = (score[i] ^ Integer.MAX_VALUE) & 0xFFFFFFFFL;
+			long near = Math.max(0, Math.min(distance[i], MAX_SORT_DISTANCE));
+			// The keys are unsigned, flipping the sign bit lets the signed sort order them
+			sortKeys[i] = (rank << 32 | near << INDEX_BITS | i) ^ Long.MIN_VALUE;
+		}
+		Arrays.sort(sortKeys, 0, count);
+	}
+
+	private static int clamp(int cell, int cells)
+	{
+		return Math.max(0, Math.min(cells - 1, cell));
+	}
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Messages placed while sync is disabled, kept on disk so they survive region changes and restarts.
+ * <p>
+ * The file is memory mapped and holds a small header followed by fixed-size records, so a record
+ * is found by its index alone. An offset table of record indexes per world and region is built
+ * from the file on first use, and a region load decodes just its own records straight from the
+ * mapping. The file grows by doubling. A deleted record keeps its id negated until enough
+ * records are deleted to compact the file. Only used on the client thread.
+ */
+@Slf4j
+public class LocalMessageStore
+{
+	private static final int MAGIC = 0x524D4C53; // "RMLS"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int INITIAL_CAPACITY = 256;
+	// Deleted records are compacted away once there are this many and they are half the file
+	private static final int MIN_COMPACT_RECORDS = 32;
+
+	// Record layout
+	static final int RECORD_SIZE = 512;
+	private static final int ID = 0;
+	private static final int TIMESTAMP = 8;
+	private static final int WORLD = 16;
+	private static final int REGION = 20;
+	private static final int X = 24;
+	private static final int Y = 28;
+	private static final int PLANE = 32;
+	private static final int MODEL = 36;
+	private static final int AUTHOR = 40;
+	private static final int AUTHOR_BYTES = 64;
+	private static final int MESSAGE = AUTHOR + 2 + AUTHOR_BYTES;
+	private static final int MESSAGE_BYTES = RECORD_SIZE - MESSAGE - 2;
+
+	private static final String ID_PREFIX = "local-";
+
+	private final File file;
+
+	private boolean loaded;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int capacity;
+	private int count;
+	private int deleted;
+	private long lastId;
+	// Record indexes of each world and region
+	private final LongObjectMap<int[]> regions = new LongObjectMap<>();
+
+	public LocalMessageStore(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Store a message, assigning it a new local id
+	 *
+	 * @return false if the message could not be written
+	 */
+	public boolean add(MessageData message)
+	{
+		if (!ensureLoaded() || (count == capacity && !remap(Math.max(capacity * 2, INITIAL_CAPACITY))))
+		{
+			return false;
+		}
+
+		// Ids are based on the time placed, bumped if two land in the same millisecond
+		long id = Math.max(System.currentTimeMillis(), lastId + 1);
+		message.setId(ID_PREFIX + id);
+
+		int index = count;
+		write(recordOffset(index), id, message);
+		count++;
+		lastId = id;
+		buffer.putInt(8, count);
+		buffer.force();
+
+		index(message.getWorldId(), message.getRegionId(), index);
+		return true;
+	}
+
+	/**
+	 * Delete a stored message
+	 *
+	 * @return false if no stored message has this id
+	 */
+	public boolean remove(String messageId)
+	{
+		if (messageId == null || !messageId.startsWith(ID_PREFIX) || !ensureLoaded())
+		{
+			return false;
+		}
+
+		long id;
+		try
+		{
+			id = Long.parseLong(messageId.substring(ID_PREFIX.length()));
+		}
+		catch (NumberFormatException e)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < count; i++)
+		{
+			int offset = recordOffset(i);
+			if (buffer.getLong(offset + ID) == id)
+			{
+				buffer.putLong(offset + ID, -id);
+				deleted++;
+				unindex(buffer.getInt(offset + WORLD), buffer.getInt(offset + REGION), i);
+				if (deleted >= MIN_COMPACT_RECORDS && deleted * 2 >= count)
+				{
+					compact();
+				}
+				buffer.force();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return new copies of the messages stored for a region, empty if there are none
+	 */
+	public List<MessageData> getRegionMessages(int worldId, int regionId)
+	{
+		if (!ensureLoaded())
+		{
+			return Collections.emptyList();
+		}
+
+		int[] records = regions.get(RegionCache.key(worldId, regionId));
+		if (records == null)
+		{
+			return Collections.emptyList();
+		}
+
+		List<MessageData> messages = new ArrayList<>(records.length);
+		for (int index : records)
+		{
+			messages.add(read(recordOffset(index)));
+		}
+		return messages;
+	}
+
+	public int size()
+	{
+		return ensureLoaded() ? count - deleted : 0;
+	}
+
+	/**
+	 * Release the mapping, the store is opened again on next use
+	 */
+	public void close()
+	{
+		if (channel != null)
+		{
+			try
+			{
+				channel.close();
+			}
+			catch (IOException e)
+			{
+				log.debug("Unable to close {}", file, e);
+			}
+		}
+		channel = null;
+		buffer = null;
+		regions.clear();
+		count = 0;
+		deleted = 0;
+		capacity = 0;
+		lastId = 0;
+		loaded = false;
+	}
+
+	private boolean ensureLoaded()
+	{
+		if (loaded)
+		{
+			return buffer != null;
+		}
+		loaded = true;
+
+		File dir = file.getParentFile();
+		if (dir != null && !dir.exists() && !dir.mkdirs())
+		{
+			log.warn("Unable to create {}", dir);
+			return false;
+		}
+
+		try
+		{
+			channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			long length = channel.size();
+			if (length < HEADER_SIZE)
+			{
+				if (!remap(INITIAL_CAPACITY))
+				{
+					return false;
+				}
+				buffer.putInt(0, MAGIC);
+				buffer.putInt(4, VERSION);
+				buffer.putInt(8, 0);
+				return true;
+			}
+
+			if (!remap((int) ((length - HEADER_SIZE) / RECORD_SIZE)))
+			{
+				return false;
+			}
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			{
+				log.warn("{} is not a local message store, ignoring it", file);
+				close();
+				loaded = true;
+				return false;
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to open {}", file, e);
+			close();
+			loaded = true;
+			return false;
+		}
+
+		// Only the id and region fields are read to build the offset table
+		count = Math.min(buffer.getInt(8), capacity);
+		for (int i = 0; i < count; i++)
+		{
+			int offset = recordOffset(i);
+			long id = buffer.getLong(offset + ID);
+			lastId = Math.max(lastId, Math.abs(id));
+			if (id < 0)
+			{
+				deleted++;
+				continue;
+			}
+			index(buffer.getInt(offset + WORLD), buffer.getInt(offset + REGION), i);
+		}
+		if (deleted >= MIN_COMPACT_RECORDS && deleted * 2 >= count)
+		{
+			compact();
+			buffer.force();
+		}
+		log.debug("Loaded {} local messages in {} regions", count - deleted, regions.size());
+		return true;
+	}
+
+	/**
+	 * Move the live records down over the deleted ones and rebuild the offset table
+	 */
+	private void compact()
+	{
+		int live = 0;
+		for (int i = 0; i < count; i++)
+		{
+			int offset = recordOffset(i);
+			if (buffer.getLong(offset + ID) < 0)
+			{
+				continue;
+			}
+			if (live != i)
+			{
+				ByteBuffer source = buffer.duplicate();
+				source.position(offset).limit(offset + RECORD_SIZE);
+				ByteBuffer target = buffer.duplicate();
+				target.position(recordOffset(live));
+				target.put(source);
+			}
+			live++;
+		}
+
+		count = live;
+		deleted = 0;
+		buffer.putInt(8, count);
+		regions.clear();
+		for (int i = 0; i < count; i++)
+		{
+			int offset = recordOffset(i);
+			index(buffer.getInt(offset + WORLD), buffer.getInt(offset + REGION), i);
+		}
+		log.debug("Compacted local message store to {} records", count);
+	}
+
+	private boolean remap(int newCapacity)
+	{
+		try
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+				HEADER_SIZE + (long) newCapacity * RECORD_SIZE);
+			capacity = newCapacity;
+			return true;
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to map {}", file, e);
+			return false;
+		}
+	}
+
+	private void index(int worldId, int regionId, int index)
+	{
+		long key = RegionCache.key(worldId, regionId);
+		int[] records = regions.get(key);
+		if (records == null)
+		{
+			records = new int[]{index};
+		}
+		else
+		{
+			records = Arrays.copyOf(records, records.length + 1);
+			records[records.length - 1] = index;
+		}
+		regions.put(key, records);
+	}
+
+	private void unindex(int worldId, int regionId, int index)
+	{
+		long key = RegionCache.key(worldId, regionId);
+		int[] records = regions.get(key);
+		if (records == null)
+		{
+			return;
+		}
+
+		int[] remaining = new int[records.length - 1];
+		int n = 0;
+		for (int record : records)
+		{
+			if (record != index && n < remaining.length)
+			{
+				remaining[n++] = record;
+			}
+		}
+		if (n == 0)
+		{
+			regions.remove(key);
+		}
+		else
+		{
+			regions.put(key, Arrays.copyOf(remaining, n));
+		}
+	}
+
+	private static int recordOffset(int index)
+	{
+		return HEADER_SIZE + index * RECORD_SIZE;
+	}
+
+	private void write(int offset, long id, MessageData message)
+	{
+		buffer.putLong(offset + ID, id);
+		buffer.putLong(offset + TIMESTAMP, message.getTimestamp());
+		buffer.putInt(offset + WORLD, message.getWorldId());
+		buffer.putInt(offset + REGION, message.getRegionId());
+		buffer.putInt(offset + X, message.getX());
+		buffer.putInt(offset + Y, message.getY());
+		buffer.putInt(offset + PLANE, message.getPlane());
+		buffer.putInt(offset + MODEL, message.getModelId());
+		writeString(offset + AUTHOR, AUTHOR_BYTES, message.getAuthor());
+		writeString(offset + MESSAGE, MESSAGE_BYTES, message.getMessage());
+	}
+
+	private MessageData read(int offset)
+	{
+		return MessageData.builder()
+			.id(ID_PREFIX + buffer.getLong(offset + ID))
+			.timestamp(buffer.getLong(offset + TIMESTAMP))
+			.worldId(buffer.getInt(offset + WORLD))
+			.regionId(buffer.getInt(offset + REGION))
+			.x(buffer.getInt(offset + X))
+			.y(buffer.getInt(offset + Y))
+			.plane(buffer.getInt(offset + PLANE))
+			.modelId(buffer.getInt(offset + MODEL))
+			.author(readString(offset + AUTHOR))
+			.message(readString(offset + MESSAGE))
+			.build();
+	}
+
+	/**
+	 * Write a length-prefixed UTF-8 string, cut at a character boundary if it does not fit
+	 */
+	private void writeString(int offset, int maxBytes, String value)
+	{
+		byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		int length = bytes.length;
+		if (length > maxBytes)
+		{
+			length = maxBytes;
+			while (length > 0 && (bytes[length] & 0xC0) == 0x80)
+			{
+				length--;
+			}
+		}
+		buffer.putShort(offset, (short) length);
+		ByteBuffer target = buffer.duplicate();
+		target.position(offset + 2);
+		target.put(bytes, 0, length);
+	}
+
+	/**
+	 * Decode directly from the mapping, without copying the bytes out first
+	 */
+	private String readString(int offset)
+	{
+		int length = buffer.getShort(offset);
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset + 2).limit(offset + 2 + length);
+		return StandardCharsets.UTF_8.decode(source).toString();
+	}
+}
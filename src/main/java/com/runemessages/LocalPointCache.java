@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Local coordinates of loaded messages. They only change when the scene is rebuilt around
+ * the player, so they are kept per scene base, plane and world view rather than projected
+ * again every tick and frame. Only used on the client thread.
+ */
+public class LocalPointCache
+{
+	// Cached for messages outside the scene, which have no local point
+	private static final LocalPoint NONE = new LocalPoint(-1, -1, -1);
+
+	private final Map<String, LocalPoint> points = new HashMap<>();
+	private int baseX;
+	private int baseY;
+	private int plane;
+	private int worldViewId;
+	private boolean valid;
+	// Set when the points were dropped, until update() reports it
+	private boolean changed;
+
+	/**
+	 * Drop all points if the scene base, plane or world view changed
+	 *
+	 * @return true if it did since the last call, also when get() noticed the change first
+	 */
+	public boolean update(WorldView worldView)
+	{
+		rebase(worldView);
+		boolean wasChanged = changed;
+		changed = false;
+		return wasChanged;
+	}
+
+	/**
+	 * @return the message's local point in the world view, or null if it is outside the scene
+	 */
+	public LocalPoint get(WorldView worldView, MessageData message)
+	{
+		rebase(worldView);
+		LocalPoint point = points.get(message.getId());
+		if (point == null)
+		{
+			point = LocalPoint.fromWorld(worldView, new WorldPoint(message.getX(), message.getY(), message.getPlane()));
+			points.put(message.getId(), point != null ? point : NONE);
+		}
+		return point != NONE ? point : null;
+	}
+
+	private void rebase(WorldView worldView)
+	{
+		if (valid && worldView.getBaseX() == baseX && worldView.getBaseY() == baseY
+			&& worldView.getPlane() == plane && worldView.getId() == worldViewId)
+		{
+			return;
+		}
+
+		points.clear();
+		baseX = worldView.getBaseX();
+		baseY = worldView.getBaseY();
+		plane = worldView.getPlane();
+		worldViewId = worldView.getId();
+		valid = true;
+		changed = true;
+	}
+
+	public void remove(String messageId)
+	{
+		points.remove(messageId);
+	}
+
+	public void clear()
+	{
+		points.clear();
+		valid = false;
+	}
+
+	public int size()
+	{
+		return points.size();
+	}
+}
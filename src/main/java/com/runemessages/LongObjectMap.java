@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map with primitive long keys. Uses linear probing and
+ * backward-shift deletion, so there are no tombstones and no boxing of keys.
+ * Not thread safe.
+ */
+public class LongObjectMap<V>
+{
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	// A null value marks an empty slot, so null values can not be stored
+	private Object[] values;
+	private int size;
+	private int resizeAt;
+
+	public LongObjectMap()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongObjectMap(int expectedSize)
+	{
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int slot = findSlot(key);
+		return slot >= 0 ? (V) values[slot] : null;
+	}
+
+	public boolean containsKey(long key)
+	{
+		return findSlot(key) >= 0;
+	}
+
+	/**
+	 * @return the previous value for the key, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null)
+		{
+			throw new IllegalArgumentException("null values are not supported");
+		}
+
+		int mask = keys.length - 1;
+		int slot = mix(key) & mask;
+		while (values[slot] != null)
+		{
+			if (keys[slot] == key)
+			{
+				V previous = (V) values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > resizeAt)
+		{
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the removed value, or null if the key was not present
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int slot = findSlot(key);
+		if (slot < 0)
+		{
+			return null;
+		}
+
+		V removed = (V) values[slot];
+		size--;
+
+		// Shift following entries of the probe chain back into the hole
+		int mask = keys.length - 1;
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (values[next] != null)
+		{
+			int home = mix(keys[next]) & mask;
+			// Move the entry if its home slot is not between the hole and its position
+			if (((next - home) & mask) >= ((next - hole) & mask))
+			{
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		values[hole] = null;
+		return removed;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	int capacity()
+	{
+		return keys.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<V> consumer)
+	{
+		for (int i = 0; i < values.length; i++)
+		{
+			if (values[i] != null)
+			{
+				consumer.accept(keys[i], (V) values[i]);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEachValue(Consumer<V> consumer)
+	{
+		for (Object value : values)
+		{
+			if (value != null)
+			{
+				consumer.accept((V) value);
+			}
+		}
+	}
+
+	private int findSlot(long key)
+	{
+		int mask = keys.length - 1;
+		int slot = mix(key) & mask;
+		while (values[slot] != null)
+		{
+			if (keys[slot] == key)
+			{
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		size = 0;
+		for (int i = 0; i < oldValues.length; i++)
+		{
+			if (oldValues[i] != null)
+			{
+				put(oldKeys[i], (V) oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		values = new Object[capacity];
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int tableSizeFor(int expectedSize)
+	{
+		int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+		return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+	}
+
+	/**
+	 * Package private so tests can pick keys that collide or wrap around the table end
+	 */
+	static int mix(long key)
+	{
+		// Spread world and region bits over the low bits used for the slot
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@FunctionalInterface
+	public interface EntryConsumer<V>
+	{
+		void accept(long key, V value);
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared heap budget for the plugin's caches. Each cache reports an estimate of its
+ * footprint, and when the total exceeds the budget the caches are trimmed in the
+ * order they were registered, least valuable first. Estimates are rough upper
+ * bounds; messages shared between caches are counted by each of them.
+ * Accounts are registered, enforced and read on the client thread.
+ */
+@Slf4j
+@Singleton
+public class MemoryBudget
+{
+	// Object header, fields and the String objects of a MessageData, excluding characters
+	private static final int MESSAGE_OVERHEAD = 160;
+
+	private final List<Account> accounts = new ArrayList<>();
+
+	/**
+	 * @param name shown in the debug overlay
+	 * @param estimate current footprint in bytes
+	 * @param trim frees roughly the given number of bytes, returning how many were freed
+	 */
+	public void register(String name, LongSupplier estimate, LongUnaryOperator trim)
+	{
+		accounts.add(new Account(name, estimate, trim));
+	}
+
+	public void clear()
+	{
+		accounts.clear();
+	}
+
+	/**
+	 * @return last measured usage per account, in bytes, built on demand for the debug overlay
+	 */
+	public Map<String, Long> getUsage()
+	{
+		Map<String, Long> usage = new LinkedHashMap<>();
+		for (Account account : accounts)
+		{
+			usage.put(account.name, account.bytes);
+		}
+		return usage;
+	}
+
+	/**
+	 * Trim caches until the total estimate fits the budget
+	 */
+	public void enforce(long budgetBytes)
+	{
+		long total = measure();
+		if (total <= budgetBytes)
+		{
+			return;
+		}
+
+		long excess = total - budgetBytes;
+		for (Account account : accounts)
+		{
+			if (excess <= 0)
+			{
+				break;
+			}
+			long freed = account.trim.applyAsLong(excess);
+			if (freed > 0)
+			{
+				log.debug("Trimmed {} bytes from {} to stay within the memory budget", freed, account.name);
+				excess -= freed;
+			}
+		}
+		measure();
+	}
+
+	private long measure()
+	{
+		long total = 0;
+		for (Account account : accounts)
+		{
+			account.bytes = account.estimate.getAsLong();
+			total += account.bytes;
+		}
+		return total;
+	}
+
+	public static long estimate(MessageData message)
+	{
+		return MESSAGE_OVERHEAD + 2L * (length(message.getId()) + length(message.getAuthor()) + length(message.getMessage()));
+	}
+
+	private static int length(String s)
+	{
+		return s != null ? s.length() : 0;
+	}
+
+	private static final class Account
+	{
+		private final String name;
+		private final LongSupplier estimate;
+		private final LongUnaryOperator trim;
+		// Last measured estimate
+		private long bytes;
+
+		private Account(String name, LongSupplier estimate, LongUnaryOperator trim)
+		{
+			this.name = name;
+			this.estimate = estimate;
+			this.trim = trim;
+		}
+	}
+}
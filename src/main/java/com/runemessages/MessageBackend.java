@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where messages come from and go to. {@link RuneMessagesService} is the facade the plugin
+ * talks to; it handles authentication state and metrics, and delegates to a backend.
+ * <p>
+ * Calls never block. Failures complete the returned future exceptionally, and
+ * implementations may complete it on any thread.
+ */
+public interface MessageBackend
+{
+	/**
+	 * @return the API key for the new account
+	 */
+	CompletableFuture<String> register(String username);
+
+	CompletableFuture<Boolean> verifyApiKey(String apiKey);
+
+	CompletableFuture<List<MessageData>> getRegionMessages(int worldId, int regionId);
+
+	/**
+	 * Every message of a world when since is 0, otherwise the changes after that version
+	 */
+	CompletableFuture<WorldSnapshot> getWorldSnapshot(int worldId, long since);
+
+	/**
+	 * One page of the key owner's messages, newest first. A null cursor requests the first page.
+	 */
+	CompletableFuture<MessagePage> getAuthorMessagesPage(String apiKey, String cursor, int limit);
+
+	/**
+	 * Store a new message. The draft has no id; the stored message is returned.
+	 */
+	CompletableFuture<MessageData> saveMessage(String apiKey, MessageData draft);
+
+	CompletableFuture<Void> deleteMessage(String apiKey, int worldId, int regionId, String messageId);
+
+	CompletableFuture<Void> rateMessage(String apiKey, MessageData message, boolean thumbsUp);
+
+	CompletableFuture<Void> reportMessage(String apiKey, MessageData message, String reason);
+
+	/**
+	 * Release files or connections held by the backend
+	 */
+	default void close()
+	{
+	}
+}
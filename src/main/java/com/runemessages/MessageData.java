@@ -54,4 +54,21 @@ public class MessageData
 		// Default to NOTE if not set (for backwards compatibility)
 		return modelId > 0 ? modelId : MarkerType.NOTE.getModelId();
 	}
+
+	/**
+	 * Replace both server vote counts at once, see {@link #getVotes()}
+	 */
+	public synchronized void setVotes(int thumbsUp, int thumbsDown)
+	{
+		this.thumbsUp = thumbsUp;
+		this.thumbsDown = thumbsDown;
+	}
+
+	/**
+	 * @return both server vote counts read together, packed by {@link VoteLedger#pack(int, int)}
+	 */
+	public synchronized long getVotes()
+	{
+		return VoteLedger.pack(thumbsUp, thumbsDown);
+	}
 }
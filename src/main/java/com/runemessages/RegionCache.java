@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Messages fetched per (world, region), keyed by a packed long so the tick path does
+ * not build String keys. Listeners are told about inserts, evictions and clears.
+ * <p>
+ * A reverse index maps each message id to its list and position, so a single message
+ * can be found, updated or removed without scanning every region. Removal swaps the
+ * last message into the freed position; region lists are unordered.
+ * Only used on the client thread.
+ */
+public class RegionCache
+{
+	// Rough heap cost of a region list, and of each list slot plus its index entry
+	private static final int LIST_OVERHEAD = 64;
+	private static final int ENTRY_OVERHEAD = 56;
+
+	private final LongObjectMap<List<MessageData>> entries = new LongObjectMap<>(64);
+	private final Map<String, Slot> index = new HashMap<>();
+	private final List<Listener> listeners = new ArrayList<>();
+	private long bytes;
+
+	public static long key(int worldId, int regionId)
+	{
+		return ((long) worldId << 32) | (regionId & 0xFFFFFFFFL);
+	}
+
+	public static int worldId(long key)
+	{
+		return (int) (key >>> 32);
+	}
+
+	public static int regionId(long key)
+	{
+		return (int) key;
+	}
+
+	public void addListener(Listener listener)
+	{
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	public List<MessageData> get(int worldId, int regionId)
+	{
+		return entries.get(key(worldId, regionId));
+	}
+
+	/**
+	 * Find the cached copy of a message
+	 *
+	 * @return the cached message, or null if no cached region contains it
+	 */
+	public MessageData find(String messageId)
+	{
+		Slot slot = index.get(messageId);
+		return slot != null ? entries.get(slot.key).get(slot.position) : null;
+	}
+
+	/**
+	 * Store the messages of a region, replacing (and evicting) any previous entry.
+	 * The cache takes ownership of the list.
+	 */
+	public void put(int worldId, int regionId, List<MessageData> messages)
+	{
+		long key = key(worldId, regionId);
+		List<MessageData> previous = entries.put(key, messages);
+		bytes += estimate(messages);
+		if (previous != null)
+		{
+			bytes -= estimate(previous);
+			unindex(key, previous);
+			for (Listener listener : listeners)
+			{
+				listener.onEvict(key, previous);
+			}
+		}
+
+		// A message id lives in one region, so a later insert simply takes over its slot
+		for (int i = 0; i < messages.size(); i++)
+		{
+			index.put(messages.get(i).getId(), new Slot(key, i));
+		}
+		for (Listener listener : listeners)
+		{
+			listener.onInsert(key, messages);
+		}
+	}
+
+	/**
+	 * Append a message to a cached region
+	 *
+	 * @return false if the region is not cached
+	 */
+	public boolean add(int worldId, int regionId, MessageData message)
+	{
+		long key = key(worldId, regionId);
+		List<MessageData> messages = entries.get(key);
+		if (messages == null)
+		{
+			return false;
+		}
+
+		index.put(message.getId(), new Slot(key, messages.size()));
+		messages.add(message);
+		bytes += MemoryBudget.estimate(message) + ENTRY_OVERHEAD;
+		return true;
+	}
+
+	/**
+	 * @return the evicted messages, or null if the region was not cached
+	 */
+	public List<MessageData> evict(int worldId, int regionId)
+	{
+		long key = key(worldId, regionId);
+		List<MessageData> removed = entries.remove(key);
+		if (removed != null)
+		{
+			bytes -= estimate(removed);
+			unindex(key, removed);
+			for (Listener listener : listeners)
+			{
+				listener.onEvict(key, removed);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Evict every cached region of a world
+	 *
+	 * @return the number of regions evicted
+	 */
+	public int evictWorld(int worldId)
+	{
+		int evicted = 0;
+		for (long key : keys())
+		{
+			if (worldId(key) == worldId)
+			{
+				evict(worldId, regionId(key));
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * Remove a single message from whichever region caches it
+	 *
+	 * @return the removed message, or null if it was not cached
+	 */
+	public MessageData remove(String messageId)
+	{
+		Slot slot = index.remove(messageId);
+		if (slot == null)
+		{
+			return null;
+		}
+
+		List<MessageData> messages = entries.get(slot.key);
+		int last = messages.size() - 1;
+		MessageData removed = messages.get(slot.position);
+		if (slot.position != last)
+		{
+			MessageData moved = messages.get(last);
+			messages.set(slot.position, moved);
+			Slot movedSlot = index.get(moved.getId());
+			if (movedSlot != null && movedSlot.key == slot.key)
+			{
+				movedSlot.position = slot.position;
+			}
+		}
+		messages.remove(last);
+		bytes -= MemoryBudget.estimate(removed) + ENTRY_OVERHEAD;
+		return removed;
+	}
+
+	public void clear()
+	{
+		entries.clear();
+		index.clear();
+		bytes = 0;
+		for (Listener listener : listeners)
+		{
+			listener.onClear();
+		}
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @return keys of all cached regions, see {@link #worldId(long)} and {@link #regionId(long)}
+	 */
+	public long[] keys()
+	{
+		long[] keys = new long[entries.size()];
+		int[] i = new int[1];
+		entries.forEach((key, messages) -> keys[i[0]++] = key);
+		return keys;
+	}
+
+	/**
+	 * @return approximate heap used by the cached messages and the id index, in bytes
+	 */
+	public long estimateBytes()
+	{
+		return bytes;
+	}
+
+	/**
+	 * Check that the reverse index and the region lists agree, for debugging
+	 *
+	 * @throws IllegalStateException describing the first inconsistency found
+	 */
+	public void verifyIndex()
+	{
+		int[] indexed = new int[1];
+		entries.forEach((key, messages) ->
+		{
+			for (int i = 0; i < messages.size(); i++)
+			{
+				Slot slot = index.get(messages.get(i).getId());
+				if (slot != null && slot.key == key && slot.position == i)
+				{
+					indexed[0]++;
+				}
+			}
+		});
+
+		for (Map.Entry<String, Slot> entry : index.entrySet())
+		{
+			Slot slot = entry.getValue();
+			List<MessageData> messages = entries.get(slot.key);
+			if (messages == null || slot.position >= messages.size()
+				|| !messages.get(slot.position).getId().equals(entry.getKey()))
+			{
+				throw new IllegalStateException("Stale index entry for message " + entry.getKey());
+			}
+		}
+
+		if (indexed[0] != index.size())
+		{
+			throw new IllegalStateException("Index has " + index.size() + " entries but "
+				+ indexed[0] + " cached messages point back to it");
+		}
+	}
+
+	private static long estimate(List<MessageData> messages)
+	{
+		long total = LIST_OVERHEAD;
+		for (MessageData message : messages)
+		{
+			total += MemoryBudget.estimate(message) + ENTRY_OVERHEAD;
+		}
+		return total;
+	}
+
+	private void unindex(long key, List<MessageData> messages)
+	{
+		for (MessageData message : messages)
+		{
+			Slot slot = index.get(message.getId());
+			// The id may since have been re-cached under another region
+			if (slot != null && slot.key == key)
+			{
+				index.remove(message.getId());
+			}
+		}
+	}
+
+	private static final class Slot
+	{
+		private final long key;
+		private int position;
+
+		private Slot(long key, int position)
+		{
+			this.key = key;
+			this.position = position;
+		}
+	}
+
+	/**
+	 * Lifecycle hooks for subsystems that keep state derived from cached regions
+	 */
+	public interface Listener
+	{
+		default void onInsert(long key, List<MessageData> messages)
+		{
+		}
+
+		default void onEvict(long key, List<MessageData> messages)
+		{
+		}
+
+		default void onClear()
+		{
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Learns how long each region's cached messages stay fresh. A region whose content changed
+ * since the last fetch gets half the time before the next one, an unchanged region twice the
+ * time, so busy regions are refreshed often and quiet ones hardly ever. Failed fetches are
+ * retried after the minimum TTL, doubled with every further failure.
+ * Learned times outlive the cached messages, but are forgotten with their world's cache and
+ * beyond a cap, those due for a refresh longest ago first. Only used on the client thread.
+ */
+public class RegionFreshness
+{
+	static final long INITIAL_TTL_MILLIS = 2 * 60_000;
+	static final long MIN_TTL_MILLIS = 30_000;
+	static final long MAX_TTL_MILLIS = 60 * 60_000;
+	private static final int MAX_BACKOFF_DOUBLINGS = 8;
+	static final int MAX_ENTRIES = 4096;
+
+	private final LongObjectMap<Entry> entries = new LongObjectMap<>();
+
+	/**
+	 * @return true if the region was never fetched or its data is older than its TTL,
+	 * and no refresh is already in flight
+	 */
+	public boolean needsRefresh(long key, long now)
+	{
+		Entry entry = entries.get(key);
+		return entry == null || (!entry.pending && now >= entry.refreshAt);
+	}
+
+	public boolean isPending(long key)
+	{
+		Entry entry = entries.get(key);
+		return entry != null && entry.pending;
+	}
+
+	/**
+	 * @return true if the last fetch failed and its retry delay has not passed yet
+	 */
+	public boolean isBackingOff(long key, long now)
+	{
+		Entry entry = entries.get(key);
+		return entry != null && !entry.pending && entry.failures > 0 && now < entry.refreshAt;
+	}
+
+	public void markPending(long key)
+	{
+		entry(key).pending = true;
+	}
+
+	/**
+	 * Record a successful fetch and adapt the region's TTL to whether its content changed
+	 */
+	public void fetched(long key, List<MessageData> messages, long now)
+	{
+		Entry entry = entry(key);
+		long hash = contentHash(messages);
+		if (entry.hashed)
+		{
+			entry.ttl = hash == entry.hash
+				? Math.min(entry.ttl * 2, MAX_TTL_MILLIS)
+				: Math.max(entry.ttl / 2, MIN_TTL_MILLIS);
+		}
+		entry.hash = hash;
+		entry.hashed = true;
+		entry.refreshAt = now + entry.ttl;
+		entry.pending = false;
+		entry.failures = 0;
+	}
+
+	/**
+	 * Record a failed fetch, the next attempt waits longer the more attempts failed in a row
+	 */
+	public void failed(long key, long now)
+	{
+		Entry entry = entry(key);
+		entry.failures = Math.min(entry.failures + 1, MAX_BACKOFF_DOUBLINGS);
+		entry.refreshAt = now + Math.min(MIN_TTL_MILLIS << (entry.failures - 1), MAX_TTL_MILLIS);
+		entry.pending = false;
+	}
+
+	/**
+	 * @return the region's current TTL, the initial one if it was never fetched
+	 */
+	public long getTtl(long key)
+	{
+		Entry entry = entries.get(key);
+		return entry != null ? entry.ttl : INITIAL_TTL_MILLIS;
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	/**
+	 * Forget a region whose cached messages were evicted, so it is fetched when it comes back
+	 * into view rather than once its TTL runs out
+	 */
+	public void evict(long key)
+	{
+		entries.remove(key);
+	}
+
+	/**
+	 * Forget the regions of a world whose cached messages were evicted
+	 */
+	public void evictWorld(int worldId)
+	{
+		List<Long> keys = new ArrayList<>();
+		entries.forEach((key, entry) ->
+		{
+			if (RegionCache.worldId(key) == worldId)
+			{
+				keys.add(key);
+			}
+		});
+		for (long key : keys)
+		{
+			entries.remove(key);
+		}
+	}
+
+	private Entry entry(long key)
+	{
+		Entry entry = entries.get(key);
+		if (entry == null)
+		{
+			if (entries.size() >= MAX_ENTRIES)
+			{
+				prune();
+			}
+			entry = new Entry();
+			entries.put(key, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Drop a quarter of the entries, those due for a refresh longest ago. Fetches in flight
+	 * are kept, they would only create their entry again.
+	 */
+	private void prune()
+	{
+		List<Long> candidates = new ArrayList<>();
+		entries.forEach((key, entry) ->
+		{
+			if (!entry.pending)
+			{
+				candidates.add(key);
+			}
+		});
+		if (candidates.isEmpty())
+		{
+			return;
+		}
+
+		long[] refreshTimes = new long[candidates.size()];
+		for (int i = 0; i < refreshTimes.length; i++)
+		{
+			refreshTimes[i] = entries.get(candidates.get(i)).refreshAt;
+		}
+		Arrays.sort(refreshTimes);
+		long threshold = refreshTimes[Math.min(refreshTimes.length, MAX_ENTRIES / 4) - 1];
+		for (long key : candidates)
+		{
+			if (entries.get(key).refreshAt <= threshold)
+			{
+				entries.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Hash of the ids and vote counts, independent of the order the API returns them in
+	 */
+	static long contentHash(List<MessageData> messages)
+	{
+		long sum = messages.size();
+		for (MessageData message : messages)
+		{
+			long h = InteractionHistory.hash(message.getId());
+			h ^= ((long) message.getThumbsUp() << 32) | (message.getThumbsDown() & 0xFFFFFFFFL);
+			h *= 0x9E3779B97F4A7C15L;
+			sum += h ^ (h >>> 29);
+		}
+		return sum;
+	}
+
+	private static class Entry
+	{
+		private long refreshAt;
+		private long ttl = INITIAL_TTL_MILLIS;
+		private long hash;
+		// False until a fetch succeeded, there is nothing to compare against before that
+		private boolean hashed;
+		private boolean pending;
+		// Fetches that failed in a row
+		private int failures;
+	}
+}
@@ -29,6 +29,7 @@ import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup("runemessages")
 public interface RuneMessagesConfig extends Config
@@ -77,6 +78,56 @@ public interface RuneMessagesConfig extends Config
 		return 5;
 	}
 
+	@ConfigItem(
+		keyName = "maxLabels",
+		name = "Max Message Labels",
+		description = "Most message labels drawn at once, overlapping labels are hidden (best voted and nearest first)",
+		position = 5,
+		section = displaySection
+	)
+	@Range(min = 1, max = 50)
+	default int maxLabels()
+	{
+		return 10;
+	}
+
+	@ConfigItem(
+		keyName = "activationRadius",
+		name = "Marker Activation Radius",
+		description = "Markers further away than this keep only their data until you get closer (in tiles)",
+		position = 4,
+		section = displaySection
+	)
+	@Range(min = 5, max = 64)
+	default int activationRadius()
+	{
+		return 24;
+	}
+
+	@ConfigItem(
+		keyName = "blockedWords",
+		name = "Blocked Words",
+		description = "Hide messages containing any of these words or phrases, separated by commas. Case is ignored and words also match inside longer words.",
+		position = 6,
+		section = displaySection
+	)
+	default String blockedWords()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "blockedPlayers",
+		name = "Blocked Players",
+		description = "Hide messages left by these players, separated by commas",
+		position = 7,
+		section = displaySection
+	)
+	default String blockedPlayers()
+	{
+		return "";
+	}
+
 	@ConfigSection(
 		name = "Sync Settings",
 		description = "Configure message synchronization",
@@ -96,6 +147,124 @@ public interface RuneMessagesConfig extends Config
 		return true;
 	}
 
+	@ConfigItem(
+		keyName = "worldSnapshot",
+		name = "Download World",
+		description = "Download all messages of the current world after login and keep them up to date, so entering a region needs no request",
+		position = 12,
+		section = syncSection
+	)
+	default boolean worldSnapshot()
+	{
+		return false;
+	}
+
+	@ConfigSection(
+		name = "Performance",
+		description = "Limit how much client time the plugin uses",
+		position = 20,
+		closedByDefault = true
+	)
+	String performanceSection = "performanceSection";
+
+	@ConfigItem(
+		keyName = "clientThreadBudget",
+		name = "Client Thread Budget",
+		description = "Maximum time per client tick spent on plugin work, the rest is deferred to the next tick (microseconds)",
+		position = 21,
+		section = performanceSection
+	)
+	@Range(min = 100, max = 20000)
+	default int clientThreadBudget()
+	{
+		return 1000;
+	}
+
+	@ConfigItem(
+		keyName = "maxSpawnsPerTick",
+		name = "Max Spawns Per Tick",
+		description = "How many message markers can be created per client tick, nearest first",
+		position = 22,
+		section = performanceSection
+	)
+	@Range(min = 1, max = 50)
+	default int maxSpawnsPerTick()
+	{
+		return 5;
+	}
+
+	@ConfigItem(
+		keyName = "memoryBudget",
+		name = "Memory Budget",
+		description = "Approximate heap the message caches may use before the least useful entries are dropped",
+		position = 23,
+		section = performanceSection
+	)
+	@Units(" MB")
+	@Range(min = 4, max = 256)
+	default int memoryBudget()
+	{
+		return 16;
+	}
+
+	@ConfigItem(
+		keyName = "hedgeRequests",
+		name = "Hedge Slow Requests",
+		description = "Send a second request for a region when the first is slower than usual, and use whichever answers first",
+		position = 24,
+		section = performanceSection
+	)
+	default boolean hedgeRequests()
+	{
+		return false;
+	}
+
+	@ConfigSection(
+		name = "Debug",
+		description = "Diagnostics for troubleshooting performance",
+		position = 30,
+		closedByDefault = true
+	)
+	String debugSection = "debugSection";
+
+	@ConfigItem(
+		keyName = "showDebugOverlay",
+		name = "Show Debug Overlay",
+		description = "Show request latencies, cache hit rate, spawn counts and render times",
+		position = 31,
+		section = debugSection
+	)
+	default boolean showDebugOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "metricsLogInterval",
+		name = "Metrics Log Interval",
+		description = "How often to write a metrics summary to the client log, 0 to disable",
+		position = 32,
+		section = debugSection
+	)
+	@Units(Units.MINUTES)
+	@Range(min = 0, max = 60)
+	default int metricsLogInterval()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "backendMode",
+		name = "Message Source",
+		description = "Live uses the RuneMessages server. Recording also saves every response to .runelite/runemessages/recording.jsonl, which Replay plays back without network access. Offline keeps messages in memory only.",
+		position = 33,
+		section = debugSection
+	)
+	default BackendMode backendMode()
+	{
+		return BackendMode.LIVE;
+	}
+
 	@ConfigItem(
 		keyName = "apiKey",
 		name = "API Key",
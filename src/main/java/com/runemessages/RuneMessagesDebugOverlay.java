@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.Map;
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+/**
+ * Toggleable panel showing the internal metrics
+ */
+public class RuneMessagesDebugOverlay extends OverlayPanel
+{
+	private final RuneMessagesConfig config;
+	private final RuneMessagesMetrics metrics;
+	private final MemoryBudget memoryBudget;
+	private final RuneMessagesService messageService;
+
+	@Inject
+	public RuneMessagesDebugOverlay(RuneMessagesConfig config, RuneMessagesMetrics metrics, MemoryBudget memoryBudget,
+		RuneMessagesService messageService)
+	{
+		this.config = config;
+		this.metrics = metrics;
+		this.memoryBudget = memoryBudget;
+		this.messageService = messageService;
+
+		setPosition(OverlayPosition.TOP_LEFT);
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		if (!config.showDebugOverlay())
+		{
+			return null;
+		}
+
+		panelComponent.getChildren().add(TitleComponent.builder()
+			.text("RuneMessages")
+			.color(new Color(255, 215, 0))
+			.build());
+
+		for (ApiEndpoint endpoint : ApiEndpoint.values())
+		{
+			MetricsHistogram latency = metrics.getLatency(endpoint);
+			if (latency.getCount() == 0)
+			{
+				continue;
+			}
+			addLine(endpoint + " p50/p95", RuneMessagesMetrics.millis(latency.percentile(0.5)) + "/"
+				+ RuneMessagesMetrics.millis(latency.percentile(0.95)) + "ms");
+			long errors = metrics.getErrors(endpoint);
+			if (errors > 0)
+			{
+				addLine(endpoint + " errors", errors + "/" + latency.getCount());
+			}
+			long retries = metrics.getRetries(endpoint);
+			if (retries > 0)
+			{
+				addLine(endpoint + " retries", String.valueOf(retries));
+			}
+			long hedges = metrics.getHedges(endpoint);
+			if (hedges > 0)
+			{
+				addLine(endpoint + " hedged/won", hedges + "/" + metrics.getHedgeWins(endpoint)
+					+ " (" + hedges * 100 / latency.getCount() + "%)");
+			}
+		}
+
+		for (ApiEndpoint endpoint : ApiEndpoint.values())
+		{
+			CircuitBreaker.State state = messageService.getCircuitState(endpoint);
+			if (state == CircuitBreaker.State.OPEN)
+			{
+				addLine(endpoint + " circuit", "open " + (messageService.getCircuitRetryInMillis(endpoint) + 999) / 1000 + "s");
+			}
+			else if (state == CircuitBreaker.State.HALF_OPEN)
+			{
+				addLine(endpoint + " circuit", "half open");
+			}
+		}
+
+		addLine("Parse p95", RuneMessagesMetrics.micros(metrics.getParseNanos().percentile(0.95)) + "us");
+		addLine("Payload max", metrics.getPayloadBytes().getMax() / 1024 + "KB");
+		int hitRate = metrics.getCacheHitRate();
+		addLine("Cache hits", hitRate < 0 ? "-" : hitRate + "%");
+		addLine("Spawns/cleanups", metrics.getSpawns() + "/" + metrics.getCleanups());
+		MetricsHistogram render = metrics.getRenderNanos();
+		addLine("Render p50/p99", RuneMessagesMetrics.micros(render.percentile(0.5)) + "/"
+			+ RuneMessagesMetrics.micros(render.percentile(0.99)) + "us");
+		MetricsHistogram tick = metrics.getTickNanos();
+		addLine("Tick p99/max", RuneMessagesMetrics.micros(tick.percentile(0.99)) + "/"
+			+ RuneMessagesMetrics.micros(tick.getMax()) + "us");
+		addLine("Tick overruns", String.valueOf(metrics.getTickOverruns()));
+
+		long totalBytes = 0;
+		for (Map.Entry<String, Long> entry : memoryBudget.getUsage().entrySet())
+		{
+			addLine("Mem " + entry.getKey(), entry.getValue() / 1024 + "KB");
+			totalBytes += entry.getValue();
+		}
+		addLine("Mem total", totalBytes / 1024 + "/" + config.memoryBudget() * 1024 + "KB");
+
+		return super.render(graphics);
+	}
+
+	private void addLine(String left, String right)
+	{
+		panelComponent.getChildren().add(LineComponent.builder()
+			.left(left)
+			.right(right)
+			.build());
+	}
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Singleton;
+import lombok.Getter;
+
+/**
+ * Internal metrics for the network, parse, spawn and render paths.
+ * All recording methods are lock-free and allocation-free.
+ */
+@Singleton
+public class RuneMessagesMetrics
+{
+	private static final ApiEndpoint[] ENDPOINTS = ApiEndpoint.values();
+
+	private final MetricsHistogram[] endpointLatency = new MetricsHistogram[ENDPOINTS.length];
+	// First attempts only, so hedges answering early do not pull down the delay they are sent after
+	private final MetricsHistogram[] primaryLatency = new MetricsHistogram[ENDPOINTS.length];
+	private final AtomicLong[] endpointErrors = new AtomicLong[ENDPOINTS.length];
+	private final AtomicLong[] endpointRetries = new AtomicLong[ENDPOINTS.length];
+	// Calls failed fast by an open circuit breaker, and how often it opened
+	private final AtomicLong[] endpointRejections = new AtomicLong[ENDPOINTS.length];
+	private final AtomicLong[] circuitOpenings = new AtomicLong[ENDPOINTS.length];
+	// Hedged second requests sent, and how many of them answered first
+	private final AtomicLong[] hedges = new AtomicLong[ENDPOINTS.length];
+	private final AtomicLong[] hedgeWins = new AtomicLong[ENDPOINTS.length];
+
+	@Getter
+	private final MetricsHistogram parseNanos = new MetricsHistogram();
+
+	@Getter
+	private final MetricsHistogram payloadBytes = new MetricsHistogram();
+
+	@Getter
+	private final MetricsHistogram renderNanos = new MetricsHistogram();
+
+	@Getter
+	private final MetricsHistogram tickNanos = new MetricsHistogram();
+
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong cacheMisses = new AtomicLong();
+	private final AtomicLong spawns = new AtomicLong();
+	private final AtomicLong cleanups = new AtomicLong();
+	private final AtomicLong tickOverruns = new AtomicLong();
+	private final AtomicLong tickDeferrals = new AtomicLong();
+
+	public RuneMessagesMetrics()
+	{
+		for (int i = 0; i < ENDPOINTS.length; i++)
+		{
+			endpointLatency[i] = new MetricsHistogram();
+			primaryLatency[i] = new MetricsHistogram();
+			endpointErrors[i] = new AtomicLong();
+			endpointRetries[i] = new AtomicLong();
+			endpointRejections[i] = new AtomicLong();
+			circuitOpenings[i] = new AtomicLong();
+			hedges[i] = new AtomicLong();
+			hedgeWins[i] = new AtomicLong();
+		}
+	}
+
+	public void recordRequest(ApiEndpoint endpoint, long nanos, boolean success)
+	{
+		endpointLatency[endpoint.ordinal()].record(nanos);
+		if (!success)
+		{
+			endpointErrors[endpoint.ordinal()].incrementAndGet();
+		}
+	}
+
+	public void recordRetry(ApiEndpoint endpoint)
+	{
+		endpointRetries[endpoint.ordinal()].incrementAndGet();
+	}
+
+	public void recordRejected(ApiEndpoint endpoint)
+	{
+		endpointRejections[endpoint.ordinal()].incrementAndGet();
+	}
+
+	public void recordCircuitOpened(ApiEndpoint endpoint)
+	{
+		circuitOpenings[endpoint.ordinal()].incrementAndGet();
+	}
+
+	/**
+	 * Time until the first attempt of a hedged read answered, or until it lost to its hedge
+	 */
+	public void recordPrimary(ApiEndpoint endpoint, long nanos)
+	{
+		primaryLatency[endpoint.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Count a hedge unless the endpoint already sent the given number
+	 *
+	 * @return false if the hedge must not be sent
+	 */
+	public boolean tryRecordHedge(ApiEndpoint endpoint, double limit)
+	{
+		AtomicLong count = hedges[endpoint.ordinal()];
+		while (true)
+		{
+			long sent = count.get();
+			if (sent >= limit)
+			{
+				return false;
+			}
+			if (count.compareAndSet(sent, sent + 1))
+			{
+				return true;
+			}
+		}
+	}
+
+	public void recordHedgeWin(ApiEndpoint endpoint)
+	{
+		hedgeWins[endpoint.ordinal()].incrementAndGet();
+	}
+
+	public void recordParse(long nanos, long bytes)
+	{
+		parseNanos.record(nanos);
+		payloadBytes.record(bytes);
+	}
+
+	public void recordCacheHit()
+	{
+		cacheHits.incrementAndGet();
+	}
+
+	public void recordCacheMiss()
+	{
+		cacheMisses.incrementAndGet();
+	}
+
+	public void recordSpawn()
+	{
+		spawns.incrementAndGet();
+	}
+
+	public void recordCleanup(int count)
+	{
+		cleanups.addAndGet(count);
+	}
+
+	public void recordRender(long nanos)
+	{
+		renderNanos.record(nanos);
+	}
+
+	/**
+	 * Record the client thread time spent by the scheduler in one tick
+	 */
+	public void recordTick(long nanos, boolean overrun)
+	{
+		tickNanos.record(nanos);
+		if (overrun)
+		{
+			tickOverruns.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Record a tick that ended with work left over for the next one
+	 */
+	public void recordDeferral()
+	{
+		tickDeferrals.incrementAndGet();
+	}
+
+	public long getTickOverruns()
+	{
+		return tickOverruns.get();
+	}
+
+	public long getTickDeferrals()
+	{
+		return tickDeferrals.get();
+	}
+
+	public MetricsHistogram getLatency(ApiEndpoint endpoint)
+	{
+		return endpointLatency[endpoint.ordinal()];
+	}
+
+	public MetricsHistogram getPrimaryLatency(ApiEndpoint endpoint)
+	{
+		return primaryLatency[endpoint.ordinal()];
+	}
+
+	public long getErrors(ApiEndpoint endpoint)
+	{
+		return endpointErrors[endpoint.ordinal()].get();
+	}
+
+	public long getRetries(ApiEndpoint endpoint)
+	{
+		return endpointRetries[endpoint.ordinal()].get();
+	}
+
+	public long getRejections(ApiEndpoint endpoint)
+	{
+		return endpointRejections[endpoint.ordinal()].get();
+	}
+
+	public long getCircuitOpenings(ApiEndpoint endpoint)
+	{
+		return circuitOpenings[endpoint.ordinal()].get();
+	}
+
+	public long getHedges(ApiEndpoint endpoint)
+	{
+		return hedges[endpoint.ordinal()].get();
+	}
+
+	public long getHedgeWins(ApiEndpoint endpoint)
+	{
+		return hedgeWins[endpoint.ordinal()].get();
+	}
+
+	public long getSpawns()
+	{
+		return spawns.get();
+	}
+
+	public long getCleanups()
+	{
+		return cleanups.get();
+	}
+
+	/**
+	 * @return cache hit rate in percent, or -1 before the first lookup
+	 */
+	public int getCacheHitRate()
+	{
+		long hits = cacheHits.get();
+		long total = hits + cacheMisses.get();
+		return total == 0 ? -1 : (int) (hits * 100 / total);
+	}
+
+	/**
+	 * Build a one-line summary for the periodic log. Not for hot paths.
+	 */
+	public String summary()
+	{
+		StringBuilder sb = new StringBuilder("RuneMessages metrics:");
+		for (ApiEndpoint endpoint : ENDPOINTS)
+		{
+			MetricsHistogram latency = getLatency(endpoint);
+			if (latency.getCount() == 0 && getRejections(endpoint) == 0)
+			{
+				continue;
+			}
+			sb.append(' ').append(endpoint).append("[n=").append(latency.getCount())
+				.append(" err=").append(getErrors(endpoint))
+				.append(" p50=").append(millis(latency.percentile(0.5)))
+				.append("ms p95=").append(millis(latency.percentile(0.95)))
+				.append("ms");
+			if (getRetries(endpoint) > 0 || getRejections(endpoint) > 0)
+			{
+				sb.append(" retries=").append(getRetries(endpoint))
+					.append(" opened=").append(getCircuitOpenings(endpoint))
+					.append(" rejected=").append(getRejections(endpoint));
+			}
+			if (getHedges(endpoint) > 0)
+			{
+				sb.append(" hedged=").append(getHedges(endpoint))
+					.append(" won=").append(getHedgeWins(endpoint));
+			}
+			sb.append(']');
+		}
+		sb.append(" parse[p95=").append(micros(parseNanos.percentile(0.95)))
+			.append("us max=").append(payloadBytes.getMax()).append("B]")
+			.append(" cacheHit=").append(getCacheHitRate()).append('%')
+			.append(" spawns=").append(getSpawns())
+			.append(" cleanups=").append(getCleanups())
+			.append(" render[p50=").append(micros(renderNanos.percentile(0.5)))
+			.append("us p99=").append(micros(renderNanos.percentile(0.99)))
+			.append("us] tick[p99=").append(micros(tickNanos.percentile(0.99)))
+			.append("us max=").append(micros(tickNanos.getMax()))
+			.append("us overruns=").append(getTickOverruns())
+			.append(" deferred=").append(getTickDeferrals())
+			.append(']');
+		return sb.toString();
+	}
+
+	static long millis(long nanos)
+	{
+		return nanos / 1_000_000;
+	}
+
+	static long micros(long nanos)
+	{
+		return nanos / 1_000;
+	}
+}
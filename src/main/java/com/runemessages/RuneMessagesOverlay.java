@@ -28,13 +28,13 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import javax.inject.Inject;
 import net.runelite.api.Client;
 import net.runelite.api.Perspective;
 import net.runelite.api.Player;
 import net.runelite.api.Point;
-import net.runelite.api.RuneLiteObject;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.client.ui.overlay.Overlay;
@@ -53,13 +53,21 @@ public class RuneMessagesOverlay extends Overlay
 	private final Client client;
 	private final RuneMessagesPlugin plugin;
 	private final RuneMessagesConfig config;
+	private final RuneMessagesMetrics metrics;
+	private final LabelPlacer<MessageData> labelPlacer = new LabelPlacer<>();
+
+	// Measured label widths, kept while the message is in the scene and the font is unchanged
+	private final Map<MessageData, LabelWidth> labelWidths = new IdentityHashMap<>();
+	private FontMetrics labelFont;
+	private long labelWidthsVersion = -1;
 
 	@Inject
-	public RuneMessagesOverlay(Client client, RuneMessagesPlugin plugin, RuneMessagesConfig config)
+	public RuneMessagesOverlay(Client client, RuneMessagesPlugin plugin, RuneMessagesConfig config, RuneMessagesMetrics metrics)
 	{
 		this.client = client;
 		this.plugin = plugin;
 		this.config = config;
+		this.metrics = metrics;
 
 		setPosition(OverlayPosition.DYNAMIC);
 		setLayer(OverlayLayer.ABOVE_SCENE);
@@ -68,58 +76,114 @@ public class RuneMessagesOverlay extends Overlay
 
 	@Override
 	public Dimension render(Graphics2D graphics)
+	{
+		long start = System.nanoTime();
+		renderMessages(graphics);
+		metrics.recordRender(System.nanoTime() - start);
+		return null;
+	}
+
+	private void renderMessages(Graphics2D graphics)
 	{
 		Player localPlayer = client.getLocalPlayer();
 		if (localPlayer == null)
 		{
-			return null;
+			return;
 		}
 
 		WorldPoint playerLocation = localPlayer.getWorldLocation();
 		int displayRadius = config.displayRadius();
+		FontMetrics fontMetrics = graphics.getFontMetrics();
+		int labelHeight = (fontMetrics.getHeight() + 2) * 3;
+
+		labelPlacer.reset(client.getCanvasWidth(), client.getCanvasHeight());
 
-		for (Map.Entry<String, RuneLiteObject> entry : plugin.getSpawnedGraves().entrySet())
+		if (!fontMetrics.equals(labelFont))
 		{
-			RuneLiteObject grave = entry.getValue();
-			if (grave == null || !grave.isActive())
-			{
-				continue;
-			}
+			labelFont = fontMetrics;
+			labelWidths.clear();
+		}
 
-			MessageData message = plugin.getMessageDataMap().get(entry.getKey());
-			if (message == null)
+		SceneSnapshot scene = plugin.getSnapshot();
+		long version = scene.getVersion();
+		for (int i = 0; i < scene.size(); i++)
+		{
+			MessageData message = scene.get(i);
+			LocalPoint expectedLocal = scene.getLocalPoint(i);
+			if (expectedLocal == null)
 			{
 				continue;
 			}
 
 			WorldPoint messageWorldPoint = new WorldPoint(message.getX(), message.getY(), message.getPlane());
 
-			LocalPoint expectedLocal = LocalPoint.fromWorld(client, messageWorldPoint);
-			if (expectedLocal == null)
+			int distance = playerLocation.distanceTo(messageWorldPoint);
+			if (distance > displayRadius)
 			{
 				continue;
 			}
 
-			int distance = playerLocation.distanceTo(messageWorldPoint);
-			if (distance > displayRadius)
+			Point point = Perspective.localToCanvas(client, expectedLocal, message.getPlane(), 150);
+			if (point == null)
 			{
 				continue;
 			}
 
-			renderMessage(graphics, expectedLocal, message, message.getPlane());
+			long votes = plugin.getVoteLedger().counts(message);
+			int labelWidth = labelWidth(fontMetrics, message, votes, version);
+			labelPlacer.add(message, point.getX() - labelWidth / 2, point.getY() - fontMetrics.getAscent(),
+				labelWidth, labelHeight, VoteLedger.score(votes), distance);
 		}
 
-		return null;
+		// Forget the widths of messages that left the scene or display radius
+		if (version != labelWidthsVersion)
+		{
+			labelWidthsVersion = version;
+			labelWidths.values().removeIf(width -> width.version != version);
+		}
+
+		// Overlapping labels are dropped, best voted and nearest win
+		int placed = labelPlacer.place(config.maxLabels());
+		for (int i = 0; i < placed; i++)
+		{
+			int centerX = labelPlacer.getLeft(i) + labelPlacer.getWidth(i) / 2;
+			int baselineY = labelPlacer.getTop(i) + fontMetrics.getAscent();
+			renderMessage(graphics, labelPlacer.getPayload(i), centerX, baselineY);
+		}
 	}
 
-	private void renderMessage(Graphics2D graphics, LocalPoint location, MessageData message, int plane)
+	/**
+	 * Measure a label, only its text is measured again and only when the vote counts changed
+	 */
+	private int labelWidth(FontMetrics metrics, MessageData message, long votes, long version)
 	{
-		Point point = Perspective.localToCanvas(client, location, plane, 150);
-		if (point == null)
+		LabelWidth width = labelWidths.get(message);
+		if (width == null)
 		{
-			return;
+			width = new LabelWidth();
+			width.text = Math.max(metrics.stringWidth("\"" + message.getMessage() + "\""),
+				metrics.stringWidth("- " + message.getAuthor()));
+			width.ratings = ratingsWidth(metrics, votes);
+			width.votes = votes;
+			labelWidths.put(message, width);
+		}
+		else if (width.votes != votes)
+		{
+			width.ratings = ratingsWidth(metrics, votes);
+			width.votes = votes;
 		}
+		width.version = version;
+		return Math.max(width.text, width.ratings);
+	}
+
+	private static int ratingsWidth(FontMetrics metrics, long votes)
+	{
+		return metrics.stringWidth("\u25B2 " + VoteLedger.thumbsUp(votes))
+			+ 15 + metrics.stringWidth("\u25BC " + VoteLedger.thumbsDown(votes));
+	}
 
+	private void renderMessage(Graphics2D graphics, MessageData message, int centerX, int baselineY)
+	{
 		String messageText = "\"" + message.getMessage() + "\"";
 		String authorText = "- " + message.getAuthor();
 
@@ -128,8 +192,8 @@ public class RuneMessagesOverlay extends Overlay
 		int authorWidth = metrics.stringWidth(authorText);
 		int maxWidth = Math.max(messageWidth, authorWidth);
 
-		int x = point.getX() - maxWidth / 2;
-		int y = point.getY();
+		int x = centerX - maxWidth / 2;
+		int y = baselineY;
 
 		graphics.setColor(SHADOW_COLOR);
 		graphics.drawString(messageText, x + 1, y + 1);
@@ -140,7 +204,7 @@ public class RuneMessagesOverlay extends Overlay
 		graphics.setColor(MESSAGE_COLOR);
 		graphics.drawString(messageText, x, y);
 
-		int authorX = point.getX() - authorWidth / 2;
+		int authorX = centerX - authorWidth / 2;
 		int authorY = y + metrics.getHeight() + 2;
 
 		graphics.setColor(SHADOW_COLOR);
@@ -150,13 +214,14 @@ public class RuneMessagesOverlay extends Overlay
 		graphics.drawString(authorText, authorX, authorY);
 
 		int ratingsY = authorY + metrics.getHeight() + 2;
-		String thumbsUpText = "\u25B2 " + message.getThumbsUp();
-		String thumbsDownText = "\u25BC " + message.getThumbsDown();
+		long votes = plugin.getVoteLedger().counts(message);
+		String thumbsUpText = "\u25B2 " + VoteLedger.thumbsUp(votes);
+		String thumbsDownText = "\u25BC " + VoteLedger.thumbsDown(votes);
 
 		int thumbsUpWidth = metrics.stringWidth(thumbsUpText);
 		int thumbsDownWidth = metrics.stringWidth(thumbsDownText);
 		int totalRatingsWidth = thumbsUpWidth + 15 + thumbsDownWidth;
-		int ratingsX = point.getX() - totalRatingsWidth / 2;
+		int ratingsX = centerX - totalRatingsWidth / 2;
 
 		graphics.setColor(SHADOW_COLOR);
 		graphics.drawString(thumbsUpText, ratingsX + 1, ratingsY + 1);
@@ -169,4 +234,15 @@ public class RuneMessagesOverlay extends Overlay
 		graphics.setColor(THUMBS_DOWN_COLOR);
 		graphics.drawString(thumbsDownText, thumbsDownX, ratingsY);
 	}
+
+	private static final class LabelWidth
+	{
+		// Widest of the message and author lines
+		private int text;
+		private int ratings;
+		// Vote counts the ratings line was measured for
+		private long votes;
+		// Last scene version the label was shown in
+		private long version;
+	}
 }
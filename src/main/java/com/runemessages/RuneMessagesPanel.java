@@ -26,6 +26,7 @@ package com.runemessages;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridBagLayout;
@@ -39,14 +40,18 @@ import java.util.Map;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
@@ -56,6 +61,9 @@ import net.runelite.client.ui.PluginPanel;
 public class RuneMessagesPanel extends PluginPanel
 {
 	private static final int MAX_MESSAGE_LENGTH = 100;
+	private static final int MY_MESSAGES_PAGE_SIZE = 25;
+	private static final int MESSAGE_ENTRY_HEIGHT = 62;
+	private static final int DELETE_COLUMN_WIDTH = 40;
 	private static final Map<String, String[]> WORD_CATEGORIES = new LinkedHashMap<>();
 
 	static
@@ -373,8 +381,17 @@ public class RuneMessagesPanel extends PluginPanel
 	private final JTextField searchField;
 	private final JComboBox<String> categoryComboBox;
 	private final JComboBox<MarkerType> markerTypeComboBox;
-	private final JPanel myMessagesPanel;
+	private final DefaultListModel<MessageData> myMessagesModel = new DefaultListModel<>();
+	private final JList<MessageData> myMessagesList;
+	private final JScrollPane myMessagesScrollPane;
 	private final JLabel myMessagesStatusLabel;
+	private final JLabel serverStatusLabel;
+
+	// Paging state for My Messages, only touched on the EDT
+	private String myMessagesCursor;
+	private boolean myMessagesLoading;
+	private boolean myMessagesLoaded;
+	private int myMessagesGeneration;
 
 	public RuneMessagesPanel(RuneMessagesPlugin plugin)
 	{
@@ -389,6 +406,16 @@ public class RuneMessagesPanel extends PluginPanel
 		titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
 		titleLabel.setBorder(new EmptyBorder(0, 0, 10, 0));
 
+		serverStatusLabel = new JLabel();
+		serverStatusLabel.setForeground(ColorScheme.PROGRESS_ERROR_COLOR);
+		serverStatusLabel.setHorizontalAlignment(SwingConstants.CENTER);
+		serverStatusLabel.setBorder(new EmptyBorder(0, 0, 10, 0));
+		serverStatusLabel.setVisible(false);
+		JPanel headerPanel = new JPanel(new BorderLayout());
+		headerPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		headerPanel.add(titleLabel, BorderLayout.NORTH);
+		headerPanel.add(serverStatusLabel, BorderLayout.SOUTH);
+
 		messageInput = new JTextArea(3, 20);
 		messageInput.setLineWrap(true);
 		messageInput.setWrapStyleWord(true);
@@ -546,29 +573,41 @@ public class RuneMessagesPanel extends PluginPanel
 		myMessagesHeader.add(myMessagesTitleLabel, BorderLayout.WEST);
 		myMessagesHeader.add(refreshButton, BorderLayout.EAST);
 
-		myMessagesPanel = new JPanel();
-		myMessagesPanel.setLayout(new BoxLayout(myMessagesPanel, BoxLayout.Y_AXIS));
-		myMessagesPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
 		myMessagesStatusLabel = new JLabel("Click Refresh to load your messages");
 		myMessagesStatusLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
-		myMessagesStatusLabel.setAlignmentX(JLabel.LEFT_ALIGNMENT);
-		myMessagesPanel.add(myMessagesStatusLabel);
+		myMessagesStatusLabel.setBorder(new EmptyBorder(0, 0, 5, 0));
+
+		// Only the visible rows are painted, through a single shared renderer
+		myMessagesList = new JList<>(myMessagesModel);
+		myMessagesList.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		myMessagesList.setCellRenderer(new MessageEntryRenderer());
+		myMessagesList.setFixedCellHeight(MESSAGE_ENTRY_HEIGHT);
+		myMessagesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		myMessagesList.addMouseListener(new java.awt.event.MouseAdapter() {
+			public void mouseClicked(java.awt.event.MouseEvent e) { onMyMessagesClicked(e); }
+		});
 
-		JScrollPane myMessagesScrollPane = new JScrollPane(myMessagesPanel);
+		myMessagesScrollPane = new JScrollPane(myMessagesList);
 		myMessagesScrollPane.setBorder(BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR));
 		myMessagesScrollPane.getVerticalScrollBar().setUnitIncrement(16);
+		myMessagesScrollPane.getVerticalScrollBar().addAdjustmentListener(e -> loadMoreIfNearEnd());
 		myMessagesScrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
 		myMessagesScrollPane.setPreferredSize(new Dimension(0, 120));
+
+		JPanel myMessagesBody = new JPanel(new BorderLayout());
+		myMessagesBody.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		myMessagesBody.add(myMessagesStatusLabel, BorderLayout.NORTH);
+		myMessagesBody.add(myMessagesScrollPane, BorderLayout.CENTER);
 		myMessagesSection.add(separator, BorderLayout.NORTH);
 		myMessagesSection.add(myMessagesHeader, BorderLayout.CENTER);
-		myMessagesSection.add(myMessagesScrollPane, BorderLayout.SOUTH);
+		myMessagesSection.add(myMessagesBody, BorderLayout.SOUTH);
 
 		JPanel mainWrapper = new JPanel(new BorderLayout());
 		mainWrapper.setBackground(ColorScheme.DARK_GRAY_COLOR);
 		mainWrapper.add(contentPanel, BorderLayout.CENTER);
 		mainWrapper.add(myMessagesSection, BorderLayout.SOUTH);
 
-		add(titleLabel, BorderLayout.NORTH);
+		add(headerPanel, BorderLayout.NORTH);
 		add(mainWrapper, BorderLayout.CENTER);
 	}
 
@@ -644,89 +683,145 @@ public class RuneMessagesPanel extends PluginPanel
 	public MarkerType getSelectedMarkerType() { return (MarkerType) markerTypeComboBox.getSelectedItem(); }
 	private void cancel() { messageInput.setText(""); updateCharCount(); plugin.closeMessagePanel(); }
 
+	@Override
+	public void onActivate() { if (!myMessagesLoaded && !myMessagesLoading) refreshMyMessages(); }
+
 	private void refreshMyMessages() {
 		String playerName = plugin.getCurrentPlayerName();
-		if (playerName == null || playerName.isEmpty()) {
-			myMessagesPanel.removeAll(); myMessagesStatusLabel.setText("Not logged in"); myMessagesPanel.add(myMessagesStatusLabel); myMessagesPanel.revalidate(); myMessagesPanel.repaint(); return;
-		}
-		myMessagesPanel.removeAll(); myMessagesStatusLabel.setText("Loading..."); myMessagesPanel.add(myMessagesStatusLabel); myMessagesPanel.revalidate(); myMessagesPanel.repaint();
-		plugin.getMessageService().getAllAuthorMessages()
-			.thenAccept(messages -> SwingUtilities.invokeLater(() -> {
-				myMessagesPanel.removeAll();
-				if (messages.isEmpty()) { myMessagesStatusLabel.setText("No messages found"); myMessagesPanel.add(myMessagesStatusLabel); }
-				else { for (MessageData msg : messages) myMessagesPanel.add(createMessageEntry(msg)); }
-				myMessagesPanel.revalidate(); myMessagesPanel.repaint();
+		myMessagesGeneration++;
+		myMessagesModel.clear(); myMessagesCursor = null; myMessagesLoaded = false; myMessagesLoading = false;
+		if (playerName == null || playerName.isEmpty()) { setMyMessagesStatus("Not logged in"); return; }
+		loadMyMessagesPage();
+	}
+
+	private void loadMyMessagesPage() {
+		if (myMessagesLoading) return;
+		myMessagesLoading = true;
+		final int generation = myMessagesGeneration;
+		if (myMessagesModel.isEmpty()) setMyMessagesStatus("Loading...");
+		plugin.getMessageService().getAuthorMessagesPage(myMessagesCursor, MY_MESSAGES_PAGE_SIZE)
+			.thenAccept(page -> SwingUtilities.invokeLater(() -> {
+				// A refresh since this request was sent makes the page stale
+				if (generation != myMessagesGeneration) return;
+				myMessagesLoading = false; myMessagesLoaded = true; myMessagesCursor = page.getNextCursor();
+				for (MessageData msg : page.getMessages()) myMessagesModel.addElement(msg);
+				updateMyMessagesStatus();
+				loadMoreIfNearEnd();
 			}))
-			.exceptionally(ex -> { SwingUtilities.invokeLater(() -> { myMessagesPanel.removeAll(); myMessagesStatusLabel.setText("Failed to load messages"); myMessagesPanel.add(myMessagesStatusLabel); myMessagesPanel.revalidate(); myMessagesPanel.repaint(); }); return null; });
+			.exceptionally(ex -> { SwingUtilities.invokeLater(() -> { if (generation != myMessagesGeneration) return; myMessagesLoading = false; setMyMessagesStatus("Failed to load messages"); }); return null; });
 	}
 
-	private JPanel createMessageEntry(MessageData message) {
-		JPanel entry = new JPanel(new BorderLayout(3, 2));
-		entry.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-		entry.setBorder(BorderFactory.createCompoundBorder(
-			BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR),
-			BorderFactory.createEmptyBorder(5, 5, 5, 5)
-		));
-		entry.setAlignmentX(JPanel.LEFT_ALIGNMENT);
-		entry.setMaximumSize(new Dimension(Integer.MAX_VALUE, 75));
-
-		// Message text
-		String msgText = message.getMessage();
-		if (msgText.length() > 25) msgText = msgText.substring(0, 22) + "...";
-		JLabel messageLabel = new JLabel("\"" + msgText + "\"");
-		messageLabel.setForeground(new Color(255, 215, 0));
-		messageLabel.setAlignmentX(JLabel.LEFT_ALIGNMENT);
-
-		// Location info
-		JLabel locationLabel = new JLabel("World " + message.getWorldId() + " | Region " + message.getRegionId());
-		locationLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
-		locationLabel.setAlignmentX(JLabel.LEFT_ALIGNMENT);
-
-		// Votes display
-		JLabel thumbsUpLabel = new JLabel("\u25B2" + message.getThumbsUp());
-		thumbsUpLabel.setForeground(new Color(50, 205, 50));
-		JLabel thumbsDownLabel = new JLabel("\u25BC" + message.getThumbsDown());
-		thumbsDownLabel.setForeground(new Color(220, 20, 60));
-
-		JPanel votesPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 3, 0));
-		votesPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-		votesPanel.setAlignmentX(JPanel.LEFT_ALIGNMENT);
-		votesPanel.add(thumbsUpLabel);
-		votesPanel.add(thumbsDownLabel);
-
-		// Left panel - message, location, votes stacked vertically
-		JPanel leftPanel = new JPanel();
-		leftPanel.setLayout(new BoxLayout(leftPanel, BoxLayout.Y_AXIS));
-		leftPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-		leftPanel.add(messageLabel);
-		leftPanel.add(locationLabel);
-		leftPanel.add(votesPanel);
-
-		// Delete button
-		JButton deleteButton = new JButton("X");
-		deleteButton.setBackground(new Color(120, 40, 40));
-		deleteButton.setForeground(Color.WHITE);
-		deleteButton.setFocusPainted(false);
-		deleteButton.setFont(deleteButton.getFont().deriveFont(12f).deriveFont(java.awt.Font.BOLD));
-		deleteButton.setPreferredSize(new Dimension(32, 32));
-		deleteButton.setMargin(new java.awt.Insets(0, 0, 0, 0));
-		deleteButton.setToolTipText("Delete message");
-		deleteButton.addActionListener(e -> deleteMessage(message));
-
-		// Right panel - delete button centered vertically
-		JPanel rightPanel = new JPanel(new GridBagLayout());
-		rightPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-		rightPanel.setPreferredSize(new Dimension(40, 60));
-		rightPanel.add(deleteButton);
-
-		entry.add(leftPanel, BorderLayout.CENTER);
-		entry.add(rightPanel, BorderLayout.EAST);
-		return entry;
+	private void loadMoreIfNearEnd() {
+		if (myMessagesLoading || myMessagesCursor == null) return;
+		javax.swing.JScrollBar bar = myMessagesScrollPane.getVerticalScrollBar();
+		if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - MESSAGE_ENTRY_HEIGHT * 2) loadMyMessagesPage();
+	}
+
+	private void updateMyMessagesStatus() {
+		if (myMessagesModel.isEmpty()) setMyMessagesStatus("No messages found");
+		else { myMessagesStatusLabel.setText(""); myMessagesStatusLabel.setVisible(false); }
+	}
+
+	private void setMyMessagesStatus(String text) { myMessagesStatusLabel.setText(text); myMessagesStatusLabel.setVisible(true); }
+
+	/**
+	 * Show why requests are paused, or hide the notice with null. Safe to call from any thread.
+	 */
+	public void setServerStatus(String text) {
+		SwingUtilities.invokeLater(() -> {
+			serverStatusLabel.setText(text != null ? "<html><center>" + text + "</center></html>" : "");
+			serverStatusLabel.setVisible(text != null);
+		});
+	}
+
+	/**
+	 * Patch a newly saved message into the list instead of re-downloading it
+	 */
+	public void onMessageSaved(MessageData message) {
+		SwingUtilities.invokeLater(() -> {
+			if (!myMessagesLoaded) return;
+			myMessagesModel.add(0, message);
+			updateMyMessagesStatus();
+		});
+	}
+
+	private void onMyMessagesClicked(java.awt.event.MouseEvent e) {
+		int index = myMessagesList.locationToIndex(e.getPoint());
+		if (index < 0) return;
+		java.awt.Rectangle cell = myMessagesList.getCellBounds(index, index);
+		// The delete button is painted by the renderer, so hit-test its column here
+		if (cell != null && cell.contains(e.getPoint()) && e.getX() >= cell.x + cell.width - DELETE_COLUMN_WIDTH) deleteMessage(myMessagesModel.get(index));
 	}
 
 	private void deleteMessage(MessageData message) {
 		plugin.getMessageService().deleteMessage(message.getWorldId(), message.getRegionId(), message.getId())
-			.thenAccept(v -> SwingUtilities.invokeLater(() -> { plugin.removeMessage(message.getId()); refreshMyMessages(); }))
-			.exceptionally(ex -> { SwingUtilities.invokeLater(() -> { myMessagesPanel.removeAll(); myMessagesStatusLabel.setText("Failed to delete message"); myMessagesPanel.add(myMessagesStatusLabel); myMessagesPanel.revalidate(); myMessagesPanel.repaint(); }); return null; });
+			.thenAccept(v -> SwingUtilities.invokeLater(() -> { plugin.removeMessage(message.getId()); myMessagesModel.removeElement(message); updateMyMessagesStatus(); }))
+			.exceptionally(ex -> { SwingUtilities.invokeLater(() -> setMyMessagesStatus("Failed to delete message")); return null; });
+	}
+
+	/**
+	 * Paints every My Messages row with one reused component tree
+	 */
+	private static class MessageEntryRenderer extends JPanel implements ListCellRenderer<MessageData> {
+		private final JLabel messageLabel = new JLabel();
+		private final JLabel locationLabel = new JLabel();
+		private final JLabel thumbsUpLabel = new JLabel();
+		private final JLabel thumbsDownLabel = new JLabel();
+
+		MessageEntryRenderer() {
+			super(new BorderLayout(3, 2));
+			setBackground(ColorScheme.DARKER_GRAY_COLOR);
+			setBorder(BorderFactory.createCompoundBorder(
+				BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR),
+				BorderFactory.createEmptyBorder(5, 5, 5, 5)
+			));
+
+			messageLabel.setForeground(new Color(255, 215, 0));
+			locationLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+			thumbsUpLabel.setForeground(new Color(50, 205, 50));
+			thumbsDownLabel.setForeground(new Color(220, 20, 60));
+
+			JPanel votesPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 3, 0));
+			votesPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+			votesPanel.setAlignmentX(JPanel.LEFT_ALIGNMENT);
+			votesPanel.add(thumbsUpLabel);
+			votesPanel.add(thumbsDownLabel);
+
+			// Left panel - message, location, votes stacked vertically
+			JPanel leftPanel = new JPanel();
+			leftPanel.setLayout(new BoxLayout(leftPanel, BoxLayout.Y_AXIS));
+			leftPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+			leftPanel.add(messageLabel);
+			leftPanel.add(locationLabel);
+			leftPanel.add(votesPanel);
+
+			// Delete button, only painted - clicks are hit-tested by the list
+			JButton deleteButton = new JButton("X");
+			deleteButton.setBackground(new Color(120, 40, 40));
+			deleteButton.setForeground(Color.WHITE);
+			deleteButton.setFocusPainted(false);
+			deleteButton.setFont(deleteButton.getFont().deriveFont(12f).deriveFont(java.awt.Font.BOLD));
+			deleteButton.setPreferredSize(new Dimension(32, 32));
+			deleteButton.setMargin(new java.awt.Insets(0, 0, 0, 0));
+
+			JPanel rightPanel = new JPanel(new GridBagLayout());
+			rightPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+			rightPanel.setPreferredSize(new Dimension(DELETE_COLUMN_WIDTH, 60));
+			rightPanel.add(deleteButton);
+
+			add(leftPanel, BorderLayout.CENTER);
+			add(rightPanel, BorderLayout.EAST);
+		}
+
+		@Override
+		public Component getListCellRendererComponent(JList<? extends MessageData> list, MessageData message, int index, boolean isSelected, boolean cellHasFocus) {
+			String msgText = message.getMessage();
+			if (msgText.length() > 25) msgText = msgText.substring(0, 22) + "...";
+			messageLabel.setText("\"" + msgText + "\"");
+			locationLabel.setText("World " + message.getWorldId() + " | Region " + message.getRegionId());
+			thumbsUpLabel.setText("\u25B2" + message.getThumbsUp());
+			thumbsDownLabel.setText("\u25BC" + message.getThumbsDown());
+			return this;
+		}
 	}
 }
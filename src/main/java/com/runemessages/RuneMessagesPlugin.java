@@ -26,17 +26,24 @@ package com.runemessages;
 
 import com.google.inject.Provides;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
@@ -50,15 +57,18 @@ import net.runelite.api.WorldView;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.ClientTick;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.MenuEntryAdded;
 import net.runelite.api.ChatMessageType;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatMessageBuilder;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.chat.QueuedMessage;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
@@ -85,6 +95,9 @@ public class RuneMessagesPlugin extends Plugin
 	@Inject
 	private ClientThread clientThread;
 
+	@Inject
+	private ClientThreadScheduler scheduler;
+
 	@Inject
 	private RuneMessagesConfig config;
 
@@ -97,6 +110,15 @@ public class RuneMessagesPlugin extends Plugin
 	@Inject
 	private RuneMessagesOverlay overlay;
 
+	@Inject
+	private RuneMessagesDebugOverlay debugOverlay;
+
+	@Inject
+	private RuneMessagesMetrics metrics;
+
+	@Inject
+	private MemoryBudget memoryBudget;
+
 	@Inject
 	private ClientToolbar clientToolbar;
 
@@ -111,41 +133,103 @@ public class RuneMessagesPlugin extends Plugin
 	private static final int TOP_VOTED_COUNT = 10;
 	private static final int MAX_AUTHOR_MESSAGES_PER_REGION = 1;
 	private static final int MAX_AUTHOR_MESSAGES_PER_WORLD = 5;
+	// Extra tiles past the activation radius before a marker is deactivated
+	private static final int ACTIVATION_HYSTERESIS = 3;
+	private static final File DEFAULT_DATA_DIR = new File(RuneLite.RUNELITE_DIR, "runemessages");
+	private static final int MAX_HISTORY_ENTRIES = 100_000;
+	// Rough heap cost of a marker object and its map entry, the model itself is shared
+	private static final int MARKER_BYTES = 256;
+	private static final long WORLD_SYNC_INTERVAL_MILLIS = 60_000;
+	// Regions of worlds left behind are kept for a quick hop back, within these limits
+	private static final int MAX_CACHED_WORLDS = 3;
+	private static final long WORLD_CACHE_TTL_MILLIS = 5 * 60_000;
+
+	// Plugin state below is only read and written on the client thread. Other threads
+	// submit their changes through the scheduler and read the published snapshot.
+	private final Map<String, RuneLiteObject> spawnedGraves = new HashMap<>();
+	private final Map<String, MessageData> messageDataMap = new HashMap<>();
 
 	@Getter
-	private final Map<String, RuneLiteObject> spawnedGraves = new ConcurrentHashMap<>();
+	private volatile SceneSnapshot snapshot = SceneSnapshot.EMPTY;
+	private final SceneSnapshotWriter sceneWriter = new SceneSnapshotWriter();
+	// Local points of loaded messages, projected again only when the scene moves
+	private final LocalPointCache localPoints = new LocalPointCache();
+	private long loadedMessageBytes = 0;
 
+	private final Set<Integer> loadedRegions = new HashSet<>();
+
+	// Where the history and local messages are kept, replaced by the simulation harness
+	@Setter(AccessLevel.PACKAGE)
+	private File dataDirectory = DEFAULT_DATA_DIR;
+
+	// Kept on disk across hops and restarts to prevent repeat votes and reports, opened in startUp
+	private InteractionHistory votedMessages;
+	private InteractionHistory reportedMessages;
+
+	// Votes shown before the server counts include them, read by the overlay
 	@Getter
-	private final Map<String, MessageData> messageDataMap = new ConcurrentHashMap<>();
+	private final VoteLedger voteLedger = new VoteLedger();
 
-	private final Set<Integer> loadedRegions = new HashSet<>();
-	private final Set<String> votedMessages = new HashSet<>();
-	private final Set<String> reportedMessages = new HashSet<>();
+	// Messages placed with sync disabled, loaded back with their regions
+	private LocalMessageStore localStore;
 
 	// Cache of all messages per world+region (persists until logout)
-	// Key format: "worldId:regionId"
-	private final Map<String, List<MessageData>> regionMessageCache = new ConcurrentHashMap<>();
+	private final RegionCache regionCache = new RegionCache();
+
+	// Worlds whose regions are still cached, with when they were left, least recently left first
+	private final Map<Integer, Long> leftWorlds = new LinkedHashMap<>();
+	private int currentWorld = -1;
+
+	// Learned refresh interval of each region
+	private final RegionFreshness freshness = new RegionFreshness();
+
+	// All messages of the current world when the world download is enabled
+	private final WorldMessageIndex worldIndex = new WorldMessageIndex();
+	private boolean worldSyncPending = false;
+	private long lastWorldSync = 0;
+
+	// Pending spawns of a region are dropped as soon as the region leaves the cache
+	private final RegionCache.Listener spawnCanceller = new RegionCache.Listener()
+	{
+		@Override
+		public void onEvict(long key, List<MessageData> messages)
+		{
+			spawnQueue.cancelRegion(RegionCache.worldId(key), RegionCache.regionId(key));
+		}
+	};
 
 	// Track occupied tile locations to prevent duplicate messages at same spot
 	private final Set<String> occupiedLocations = new HashSet<>();
 
+	// Selected messages waiting to be spawned, a few per tick
+	private final SpawnQueue spawnQueue = new SpawnQueue();
+	private boolean spawnDrainQueued = false;
+
+	// The menu is rebuilt every client tick. The hovered tile's message is only looked up
+	// again when the tile or the scene changed, and options are added once per client tick.
+	private int clientTicks;
+	private int menuInjectedTick = -1;
+	private Tile menuTile;
+	private long menuSceneVersion = -1;
+	private HoveredMessage hoveredMessage;
+
 	private RuneMessagesPanel messagePanel;
 	private NavigationButton navButton;
 	private boolean panelVisible = false;
 	private boolean registrationAttempted = false;
+	private boolean sceneMaintenancePending = false;
+	private boolean housekeepingPending = false;
+	private long lastMetricsSummary = System.currentTimeMillis();
+	private String serverStatus;
 
 	@Override
 	protected void startUp() throws Exception
 	{
 		overlayManager.add(overlay);
-
-		// Load API key from config
-		String savedApiKey = config.apiKey();
-		if (savedApiKey != null && !savedApiKey.isEmpty())
-		{
-			messageService.setApiKey(savedApiKey);
-			log.debug("Loaded API key from config");
-		}
+		overlayManager.add(debugOverlay);
+		messageService.useBackend(config.backendMode());
+		// Queued behind the teardown of a previous shutDown, which would otherwise close the new store
+		clientThread.invoke(this::initState);
 
 		messagePanel = new RuneMessagesPanel(this);
 
@@ -174,40 +258,178 @@ public class RuneMessagesPlugin extends Plugin
 		log.info("RuneMessages plugin started");
 	}
 
+	/**
+	 * Set up the scene state and services used on the tick path. Split from {@link #startUp()}
+	 * so the headless simulation can drive the plugin without any UI.
+	 */
+	void initState()
+	{
+		votedMessages = new InteractionHistory(new File(dataDirectory, "votes.dat"), MAX_HISTORY_ENTRIES);
+		reportedMessages = new InteractionHistory(new File(dataDirectory, "reports.dat"), MAX_HISTORY_ENTRIES);
+		localStore = new LocalMessageStore(new File(dataDirectory, "local-messages.dat"));
+
+		regionCache.addListener(spawnCanceller);
+		messageService.setHedging(config.hedgeRequests());
+		messageService.setContentFilter(ContentFilter.compile(config.blockedWords(), config.blockedPlayers()));
+
+		// Least valuable first: regions can be re-fetched, far messages are cheap to lose.
+		// Dropping the world download falls back to fetching each region.
+		memoryBudget.register("World", worldIndex::estimateBytes, bytes -> worldIndex.drop());
+		memoryBudget.register("Region cache", regionCache::estimateBytes, this::trimRegionCache);
+		memoryBudget.register("Messages",
+			() -> loadedMessageBytes + (long) spawnedGraves.size() * MARKER_BYTES, this::trimMessages);
+		memoryBudget.register("History",
+			() -> votedMessages.estimateBytes() + reportedMessages.estimateBytes(), bytes -> 0);
+
+		// Load API key from config
+		String savedApiKey = config.apiKey();
+		if (savedApiKey != null && !savedApiKey.isEmpty())
+		{
+			messageService.setApiKey(savedApiKey);
+			log.debug("Loaded API key from config");
+		}
+	}
+
 	@Override
 	protected void shutDown() throws Exception
 	{
 		overlayManager.remove(overlay);
+		overlayManager.remove(debugOverlay);
 
 		if (navButton != null)
 		{
 			clientToolbar.removeNavigation(navButton);
 		}
 
-		clearAllGraves();
-		loadedRegions.clear();
-		messageDataMap.clear();
-		votedMessages.clear();
-		reportedMessages.clear();
-		regionMessageCache.clear();
-		occupiedLocations.clear();
+		messageService.close();
+
+		// Our event subscriptions are gone, so tear down directly on the client thread
+		scheduler.clear();
+		clientThread.invoke(() ->
+		{
+			spawnQueue.clear();
+			clearAllGraves();
+			loadedRegions.clear();
+			messageDataMap.clear();
+			localPoints.clear();
+			loadedMessageBytes = 0;
+			regionCache.clear();
+			regionCache.removeListener(spawnCanceller);
+			freshness.clear();
+			leftWorlds.clear();
+			voteLedger.clear();
+			currentWorld = -1;
+			worldIndex.reset(-1);
+			memoryBudget.clear();
+			occupiedLocations.clear();
+			localStore.close();
+			snapshot = SceneSnapshot.EMPTY;
+			menuTile = null;
+			hoveredMessage = null;
+			// Their tasks were dropped with the rest of the queue
+			sceneMaintenancePending = false;
+			housekeepingPending = false;
+		});
 
 		log.info("RuneMessages plugin stopped");
 	}
 
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (!CONFIG_GROUP.equals(event.getGroup()))
+		{
+			return;
+		}
+
+		if ("backendMode".equals(event.getKey()))
+		{
+			messageService.useBackend(config.backendMode());
+		}
+		else if ("hedgeRequests".equals(event.getKey()))
+		{
+			messageService.setHedging(config.hedgeRequests());
+		}
+		else if ("blockedWords".equals(event.getKey()) || "blockedPlayers".equals(event.getKey()))
+		{
+			ContentFilter filter = ContentFilter.compile(config.blockedWords(), config.blockedPlayers());
+			messageService.setContentFilter(filter);
+			scheduler.submit(() -> applyContentFilter(filter));
+		}
+		else if ("worldSnapshot".equals(event.getKey()) && !config.worldSnapshot())
+		{
+			scheduler.submit(() -> worldIndex.reset(-1));
+		}
+	}
+
+	/**
+	 * Drop messages the filter now blocks. Ones it no longer blocks come back as their
+	 * regions are fetched again, which is made to happen soon.
+	 */
+	private void applyContentFilter(ContentFilter filter)
+	{
+		List<String> blocked = new ArrayList<>();
+		for (long key : regionCache.keys())
+		{
+			for (MessageData message : regionCache.get(RegionCache.worldId(key), RegionCache.regionId(key)))
+			{
+				if (filter.blocks(message))
+				{
+					blocked.add(message.getId());
+				}
+			}
+		}
+		for (MessageData message : messageDataMap.values())
+		{
+			if (filter.blocks(message))
+			{
+				blocked.add(message.getId());
+			}
+		}
+
+		for (String id : blocked)
+		{
+			regionCache.remove(id);
+			unloadMessage(id);
+		}
+		spawnQueue.removeIf(filter::blocks);
+		freshness.clear();
+		worldIndex.reset(-1);
+		log.debug("Content filter removed {} messages", blocked.size());
+	}
+
 	@Subscribe
 	public void onGameStateChanged(GameStateChanged event)
 	{
+		// Tiles are reused when the scene loads, so a remembered tile may now be elsewhere
+		menuTile = null;
+		hoveredMessage = null;
+
 		if (event.getGameState() == GameState.LOGIN_SCREEN ||
 			event.getGameState() == GameState.HOPPING)
 		{
+			// Tear down the scene. Loaded messages and occupied tiles are not keyed by world,
+			// they are rebuilt from the region cache when the new world's regions load.
+			spawnQueue.clear();
 			clearAllGraves();
 			loadedRegions.clear();
 			messageDataMap.clear();
-			regionMessageCache.clear();
+			localPoints.clear();
+			loadedMessageBytes = 0;
 			occupiedLocations.clear();
+			worldIndex.reset(-1);
+			publishSnapshot();
 			registrationAttempted = false; // Allow re-registration on next login
-			// Keep votedMessages and reportedMessages across hops to prevent abuse
+		}
+
+		// The region cache survives hops, but not logging out
+		if (event.getGameState() == GameState.LOGIN_SCREEN)
+		{
+			regionCache.clear();
+			freshness.clear();
+			leftWorlds.clear();
+			currentWorld = -1;
+			voteLedger.clear();
 		}
 	}
 
@@ -262,6 +484,11 @@ public class RuneMessagesPlugin extends Plugin
 		}
 
 		int worldId = client.getWorld();
+		if (worldId != currentWorld)
+		{
+			enterWorld(worldId);
+		}
+		syncWorld(worldId);
 
 		// Convert to set for easy lookup
 		Set<Integer> currentRegions = new HashSet<>();
@@ -270,7 +497,7 @@ public class RuneMessagesPlugin extends Plugin
 			currentRegions.add(r);
 		}
 
-		// Clear regions that are no longer visible - this allows fresh loading when returning
+		// Forget regions that are no longer visible, their messages stay cached for a return visit
 		Set<Integer> regionsToRemove = new HashSet<>();
 		for (Integer loadedRegion : loadedRegions)
 		{
@@ -282,109 +509,454 @@ public class RuneMessagesPlugin extends Plugin
 		for (Integer regionToRemove : regionsToRemove)
 		{
 			loadedRegions.remove(regionToRemove);
-			// Also clear the cache for this region
-			String cacheKey = worldId + ":" + regionToRemove;
-			regionMessageCache.remove(cacheKey);
+			// Drop spawns that have not happened yet
+			spawnQueue.cancelRegion(worldId, regionToRemove);
 		}
 
-		// Clean up messages from regions no longer in view
-		cleanupDistantMessages(currentRegions);
-
-		// Load new regions
+		// Load new regions, and refresh visible ones whose cached messages went stale. Loading
+		// sorts and queues the region's spawn candidates, so it is spread over ticks per region.
+		boolean fetchRegions = config.showOtherMessages() && !(config.worldSnapshot() && worldIndex.isReady(worldId));
+		List<Integer> newRegions = new ArrayList<>();
 		for (int region : regions)
 		{
 			if (!loadedRegions.contains(region))
 			{
 				loadedRegions.add(region);
+				newRegions.add(region);
+			}
+			else if (fetchRegions && regionCache.get(worldId, region) != null)
+			{
+				revalidateIfStale(worldId, region);
+			}
+		}
+		scheduler.forEach(newRegions, region ->
+		{
+			// Skip regions left or hopped away from before their turn came
+			if (worldId == currentWorld && loadedRegions.contains(region))
+			{
 				loadMessagesForRegion(worldId, region);
 			}
+		});
+
+		// Clean up distant messages and re-spawn graves that came back into view. This walks
+		// every loaded message, so it is spread over ticks and skipped while a pass is still running.
+		if (!sceneMaintenancePending)
+		{
+			sceneMaintenancePending = true;
+			List<MessageData> messages = new ArrayList<>(messageDataMap.values());
+			cleanupDistantMessages(messages, currentRegions);
+			refreshGraves(messages);
+			scheduler.submit(() ->
+			{
+				sceneMaintenancePending = false;
+			});
+		}
+
+		// Queued once at a time, so a backed up scheduler does not collect a check per tick
+		if (!housekeepingPending)
+		{
+			housekeepingPending = true;
+			scheduler.submit(() ->
+			{
+				housekeepingPending = false;
+				memoryBudget.enforce(config.memoryBudget() * 1024L * 1024L);
+				updateServerStatus();
+			});
 		}
 
-		// Re-spawn graves that went out of view and came back
-		refreshGraves();
+		logMetricsSummary();
 	}
 
 	/**
-	 * Remove messages from regions that are no longer in view
+	 * Keep the regions of the world being left, and drop those of worlds left too long ago
+	 * or pushed out by more recent ones
 	 */
-	private void cleanupDistantMessages(Set<Integer> currentRegions)
+	private void enterWorld(int worldId)
 	{
-		List<String> messagesToRemove = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		if (currentWorld != -1)
+		{
+			leftWorlds.put(currentWorld, now);
+		}
+		currentWorld = worldId;
 
-		for (Map.Entry<String, MessageData> entry : messageDataMap.entrySet())
+		Long left = leftWorlds.remove(worldId);
+		if (left != null && now - left > WORLD_CACHE_TTL_MILLIS)
 		{
-			MessageData message = entry.getValue();
-			if (!currentRegions.contains(message.getRegionId()))
+			regionCache.evictWorld(worldId);
+			freshness.evictWorld(worldId);
+		}
+
+		Iterator<Map.Entry<Integer, Long>> it = leftWorlds.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Integer, Long> entry = it.next();
+			if (leftWorlds.size() >= MAX_CACHED_WORLDS || now - entry.getValue() > WORLD_CACHE_TTL_MILLIS)
 			{
-				messagesToRemove.add(entry.getKey());
+				int evicted = regionCache.evictWorld(entry.getKey());
+				freshness.evictWorld(entry.getKey());
+				log.debug("Dropped {} cached regions of world {}", evicted, entry.getKey());
+				it.remove();
 			}
 		}
+	}
 
-		for (String messageId : messagesToRemove)
+	/**
+	 * Download the world's messages after login or a hop, then fetch changes periodically
+	 */
+	private void syncWorld(int worldId)
+	{
+		if (!config.worldSnapshot() || worldSyncPending)
 		{
-			// Deactivate and remove the grave
-			RuneLiteObject grave = spawnedGraves.remove(messageId);
-			if (grave != null)
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		if (worldIndex.getWorldId() != worldId)
+		{
+			worldIndex.reset(worldId);
+		}
+		else if (worldIndex.isDropped() || now - lastWorldSync < WORLD_SYNC_INTERVAL_MILLIS)
+		{
+			return;
+		}
+
+		worldSyncPending = true;
+		lastWorldSync = now;
+		messageService.getWorldSnapshot(worldId, worldIndex.getVersion())
+			.thenAccept(worldSnapshot -> scheduler.submit(() ->
 			{
-				grave.setActive(false);
+				worldSyncPending = false;
+				if (worldIndex.getWorldId() == worldId && !worldIndex.isDropped())
+				{
+					applyWorldChanges(worldId, worldIndex.apply(worldSnapshot));
+				}
+			}))
+			.exceptionally(ex ->
+			{
+				// Regions keep being fetched one by one until a later attempt succeeds
+				log.warn("Failed to download messages of world {}: {}", worldId, ex.getMessage());
+				scheduler.submit(() ->
+				{
+					worldSyncPending = false;
+				});
+				return null;
+			});
+	}
+
+	/**
+	 * Bring cached regions up to date with a world download. Regions are not revalidated while
+	 * the download is used, so its deletions and vote counts have to reach the cache and scene here.
+	 */
+	private void applyWorldChanges(int worldId, Set<Integer> changedRegions)
+	{
+		List<Integer> cachedRegions = new ArrayList<>();
+		for (int regionId : changedRegions)
+		{
+			if (regionCache.get(worldId, regionId) != null)
+			{
+				cachedRegions.add(regionId);
+			}
+		}
+		scheduler.forEach(cachedRegions, regionId ->
+		{
+			// The download may have been dropped or replaced by another world's meanwhile
+			if (worldIndex.isReady(worldId))
+			{
+				mergeRegion(worldId, regionId, worldIndex.getRegionMessages(regionId),
+					getLocalMessages(worldId, regionId));
+			}
+		});
+	}
+
+	@Subscribe
+	public void onClientTick(ClientTick event)
+	{
+		clientTicks++;
+
+		// The scene was rebuilt around the player, project everything again in one go
+		WorldView worldView = client.getTopLevelWorldView();
+		if (worldView != null && localPoints.update(worldView))
+		{
+			sceneWriter.reproject(message -> localPoints.get(worldView, message));
+		}
+
+		if (!spawnQueue.isEmpty() && !spawnDrainQueued)
+		{
+			spawnDrainQueued = true;
+			scheduler.submit(this::drainSpawnQueue);
+		}
+
+		scheduler.drain();
+		publishSnapshot();
+	}
+
+	/**
+	 * Publish the scene for readers, a no-op unless something changed since the last publish
+	 */
+	private void publishSnapshot()
+	{
+		snapshot = sceneWriter.publish(messageDataMap.size());
+	}
+
+	/**
+	 * Spawn up to the configured number of queued markers, nearest first
+	 */
+	private void drainSpawnQueue()
+	{
+		spawnDrainQueued = false;
+
+		int limit = config.maxSpawnsPerTick();
+		for (int i = 0; i < limit && scheduler.hasBudget(); i++)
+		{
+			MessageData message = spawnQueue.poll();
+			if (message == null)
+			{
+				break;
+			}
+			spawnCandidate(message);
+		}
+	}
+
+	/**
+	 * Tell the panel when requests are being held back by an open circuit breaker
+	 */
+	private void updateServerStatus()
+	{
+		List<String> paused = new ArrayList<>();
+		for (ApiEndpoint endpoint : ApiEndpoint.values())
+		{
+			if (messageService.getCircuitState(endpoint) != CircuitBreaker.State.CLOSED)
+			{
+				paused.add(endpoint.getDisplayName());
+			}
+		}
+
+		String status = paused.isEmpty() ? null
+			: "Server unavailable (" + String.join(", ", paused) + "), retrying automatically";
+		if (!Objects.equals(status, serverStatus))
+		{
+			serverStatus = status;
+			if (messagePanel != null)
+			{
+				messagePanel.setServerStatus(status);
+			}
+		}
+	}
+
+	private void logMetricsSummary()
+	{
+		int intervalMinutes = config.metricsLogInterval();
+		if (intervalMinutes <= 0)
+		{
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		if (now - lastMetricsSummary >= intervalMinutes * 60_000L)
+		{
+			lastMetricsSummary = now;
+			log.info(metrics.summary());
+		}
+	}
+
+	/**
+	 * Remove messages from regions that are no longer in view
+	 */
+	private void cleanupDistantMessages(List<MessageData> messages, Set<Integer> currentRegions)
+	{
+		scheduler.forEach(messages, message ->
+		{
+			if (currentRegions.contains(message.getRegionId()))
+			{
+				return;
 			}
 
-			// Remove from message data and occupied locations
-			MessageData data = messageDataMap.remove(messageId);
-			if (data != null)
+			if (unloadMessage(message.getId()) != null)
 			{
-				String locationKey = data.getX() + "," + data.getY() + "," + data.getPlane();
-				occupiedLocations.remove(locationKey);
+				metrics.recordCleanup(1);
+			}
+		});
+	}
+
+	/**
+	 * Add a message to the scene state, without creating its marker
+	 */
+	private void loadMessage(MessageData message)
+	{
+		MessageData previous = messageDataMap.put(message.getId(), message);
+		if (previous != null)
+		{
+			loadedMessageBytes -= MemoryBudget.estimate(previous);
+			localPoints.remove(message.getId());
+			WorldView worldView = client.getTopLevelWorldView();
+			if (spawnedGraves.containsKey(message.getId()) && worldView != null)
+			{
+				sceneWriter.put(message, localPoints.get(worldView, message));
 			}
 		}
+		loadedMessageBytes += MemoryBudget.estimate(message);
+		occupiedLocations.add(message.getX() + "," + message.getY() + "," + message.getPlane());
+	}
+
+	/**
+	 * Remove a message and its marker from the scene state
+	 *
+	 * @return the removed message, or null if it was not loaded
+	 */
+	private MessageData unloadMessage(String messageId)
+	{
+		deactivateGrave(messageId);
 
-		if (!messagesToRemove.isEmpty())
+		MessageData data = messageDataMap.remove(messageId);
+		if (data != null)
 		{
-			log.debug("Cleaned up {} messages from distant regions", messagesToRemove.size());
+			loadedMessageBytes -= MemoryBudget.estimate(data);
+			localPoints.remove(messageId);
+			occupiedLocations.remove(data.getX() + "," + data.getY() + "," + data.getPlane());
 		}
+		return data;
 	}
 
-	private void refreshGraves()
+	/**
+	 * Drop cached regions furthest from the player until enough memory is freed
+	 */
+	private long trimRegionCache(long bytes)
 	{
-		for (Map.Entry<String, MessageData> entry : messageDataMap.entrySet())
+		Player localPlayer = client.getLocalPlayer();
+		int playerRegion = localPlayer != null ? localPlayer.getWorldLocation().getRegionID() : -1;
+
+		List<Long> byDistance = new ArrayList<>();
+		for (long key : regionCache.keys())
+		{
+			byDistance.add(key);
+		}
+		// Regions of worlds the player has left go first
+		byDistance.sort(Comparator.comparing((Long key) -> RegionCache.worldId(key) == currentWorld)
+			.thenComparing(Comparator.comparingInt((Long key) -> regionDistance(playerRegion, RegionCache.regionId(key))).reversed()));
+
+		long before = regionCache.estimateBytes();
+		for (long key : byDistance)
 		{
-			String messageId = entry.getKey();
-			MessageData message = entry.getValue();
+			if (before - regionCache.estimateBytes() >= bytes)
+			{
+				break;
+			}
+			regionCache.evict(RegionCache.worldId(key), RegionCache.regionId(key));
+			freshness.evict(key);
+		}
+		return before - regionCache.estimateBytes();
+	}
 
-			RuneLiteObject existingGrave = spawnedGraves.get(messageId);
+	/**
+	 * Unload messages furthest from the player, dormant ones before active markers
+	 */
+	private long trimMessages(long bytes)
+	{
+		Player localPlayer = client.getLocalPlayer();
+		WorldPoint playerLocation = localPlayer != null ? localPlayer.getWorldLocation() : null;
 
-			// Check if grave needs to be re-spawned
-			WorldPoint worldPoint = new WorldPoint(message.getX(), message.getY(), message.getPlane());
-			LocalPoint localPoint = LocalPoint.fromWorld(client, worldPoint);
+		List<MessageData> byDistance = new ArrayList<>(messageDataMap.values());
+		if (playerLocation != null)
+		{
+			byDistance.sort(Comparator.comparingInt((MessageData m) -> Math.max(
+				Math.abs(m.getX() - playerLocation.getX()),
+				Math.abs(m.getY() - playerLocation.getY()))).reversed());
+		}
 
-			if (localPoint == null)
+		long freed = 0;
+		for (MessageData message : byDistance)
+		{
+			if (freed >= bytes)
 			{
-				// Location not in view - deactivate if active
-				if (existingGrave != null && existingGrave.isActive())
-				{
-					existingGrave.setActive(false);
-				}
+				break;
 			}
-			else
+			boolean active = spawnedGraves.containsKey(message.getId());
+			if (unloadMessage(message.getId()) != null)
 			{
-				// Location is in view
-				if (existingGrave == null || !existingGrave.isActive())
-				{
-					// Need to re-spawn
-					if (existingGrave != null)
-					{
-						existingGrave.setActive(false);
-						spawnedGraves.remove(messageId);
-					}
-					spawnGrave(message);
-				}
-				else
-				{
-					// Grave exists and is active - update location in case it shifted
-					existingGrave.setLocation(localPoint, message.getPlane());
-				}
+				freed += MemoryBudget.estimate(message) + (active ? MARKER_BYTES : 0);
 			}
 		}
+		return freed;
+	}
+
+	/**
+	 * Chebyshev distance between two regions, in regions
+	 */
+	private static int regionDistance(int from, int to)
+	{
+		if (from < 0)
+		{
+			return 0;
+		}
+		return Math.max(Math.abs((from >> 8) - (to >> 8)), Math.abs((from & 0xFF) - (to & 0xFF)));
+	}
+
+	private void deactivateGrave(String messageId)
+	{
+		RuneLiteObject grave = spawnedGraves.remove(messageId);
+		if (grave != null)
+		{
+			grave.setActive(false);
+			sceneWriter.remove(messageId);
+		}
+	}
+
+	private void refreshGraves(List<MessageData> messages)
+	{
+		scheduler.forEach(messages, this::refreshGrave);
+	}
+
+	/**
+	 * Activate or deactivate a marker based on its distance to the player. Markers only
+	 * deactivate a few tiles past the activation radius so they do not flicker at the edge.
+	 */
+	private void refreshGrave(MessageData message)
+	{
+		String messageId = message.getId();
+
+		// Removed since this pass was queued
+		if (!messageDataMap.containsKey(messageId))
+		{
+			return;
+		}
+
+		Player localPlayer = client.getLocalPlayer();
+		if (localPlayer == null)
+		{
+			return;
+		}
+
+		WorldView worldView = client.getTopLevelWorldView();
+		if (worldView == null)
+		{
+			return;
+		}
+
+		RuneLiteObject existingGrave = spawnedGraves.get(messageId);
+		boolean active = existingGrave != null && existingGrave.isActive();
+
+		WorldPoint worldPoint = new WorldPoint(message.getX(), message.getY(), message.getPlane());
+		LocalPoint localPoint = localPoints.get(worldView, message);
+		int distance = localPlayer.getWorldLocation().distanceTo(worldPoint);
+		int activationRadius = config.activationRadius();
+
+		if (localPoint == null || distance > activationRadius + ACTIVATION_HYSTERESIS)
+		{
+			// Out of view or too far away - keep only the message data
+			deactivateGrave(messageId);
+		}
+		else if (active)
+		{
+			// Grave exists and is active - update location in case it shifted
+			existingGrave.setLocation(localPoint, message.getPlane());
+		}
+		else if (distance <= activationRadius)
+		{
+			// Player came close enough - (re-)spawn it
+			deactivateGrave(messageId);
+			spawnGrave(message);
+		}
 	}
 
 	private void tryRegister()
@@ -415,13 +987,13 @@ public class RuneMessagesPlugin extends Plugin
 				configManager.setConfiguration(CONFIG_GROUP, "registeredUsername", username);
 				log.info("Successfully registered for RuneMessages");
 
-				clientThread.invokeLater(() -> {
+				scheduler.submit(() -> {
 					sendChatMessage("RuneMessages: Registered successfully!");
 				});
 			})
 			.exceptionally(ex -> {
 				log.warn("Failed to register for RuneMessages: {}", ex.getMessage());
-				clientThread.invokeLater(() -> {
+				scheduler.submit(() -> {
 					sendChatMessage("RuneMessages: Registration failed. Messages will be local only.");
 				});
 				return null;
@@ -449,6 +1021,13 @@ public class RuneMessagesPlugin extends Plugin
 			return;
 		}
 
+		// The menu can be rebuilt several times per tick, so the tick only tells that the
+		// entries may be there already. Only then is the menu scanned for them.
+		if (menuInjectedTick == clientTicks && hasMessageOptions())
+		{
+			return;
+		}
+
 		// Get the world view
 		int worldViewId = event.getMenuEntry().getWorldViewId();
 		WorldView wv = client.getWorldView(worldViewId);
@@ -464,72 +1043,87 @@ public class RuneMessagesPlugin extends Plugin
 			return;
 		}
 
-		// Get the world point of the selected tile
-		WorldPoint selectedWorldPoint = selectedTile.getWorldLocation();
-		if (selectedWorldPoint == null)
+		HoveredMessage hovered = findHoveredMessage(selectedTile);
+		if (hovered == null)
 		{
 			return;
 		}
+		menuInjectedTick = clientTicks;
 
-		// Check if we already added message options
-		MenuEntry[] entries = client.getMenuEntries();
-		for (MenuEntry entry : entries)
-		{
-			if (EXAMINE_OPTION.equals(entry.getOption()) && entry.getTarget().contains("'s Message"))
-			{
-				return; // Already added
-			}
-		}
-
-		// Find message at this tile using world coordinates
-		MessageData nearbyMessage = findMessageAtWorldPoint(selectedWorldPoint);
-		if (nearbyMessage == null)
-		{
-			return;
-		}
-
-		String messageTarget = "<col=ffff00>" + nearbyMessage.getAuthor() + "'s Message</col>";
-
-		// Add Examine option
 		client.createMenuEntry(-1)
 			.setOption(EXAMINE_OPTION)
-			.setTarget(messageTarget)
+			.setTarget(hovered.target)
 			.setType(MenuAction.RUNELITE)
-			.onClick(e -> examineMessage(nearbyMessage));
+			.onClick(hovered.examine);
 
-		// Add Vote Up option
 		client.createMenuEntry(-1)
 			.setOption(VOTE_UP_OPTION)
-			.setTarget(messageTarget)
+			.setTarget(hovered.target)
 			.setType(MenuAction.RUNELITE)
-			.onClick(e -> voteMessage(nearbyMessage, true));
+			.onClick(hovered.voteUp);
 
-		// Add Vote Down option
 		client.createMenuEntry(-1)
 			.setOption(VOTE_DOWN_OPTION)
-			.setTarget(messageTarget)
+			.setTarget(hovered.target)
 			.setType(MenuAction.RUNELITE)
-			.onClick(e -> voteMessage(nearbyMessage, false));
+			.onClick(hovered.voteDown);
 
-		// Add Report option
 		client.createMenuEntry(-1)
 			.setOption(REPORT_OPTION)
-			.setTarget(messageTarget)
+			.setTarget(hovered.target)
 			.setType(MenuAction.RUNELITE)
-			.onClick(e -> reportMessage(nearbyMessage));
+			.onClick(hovered.report);
 	}
 
-	private MessageData findMessageAtWorldPoint(WorldPoint worldPoint)
+	private boolean hasMessageOptions()
 	{
-		// Check each message to see if it's at this world point
-		for (Map.Entry<String, MessageData> entry : messageDataMap.entrySet())
+		for (MenuEntry entry : client.getMenuEntries())
 		{
-			MessageData message = entry.getValue();
-			if (message == null)
+			if (EXAMINE_OPTION.equals(entry.getOption()) && entry.getTarget().contains("'s Message"))
 			{
-				continue;
+				return true;
 			}
+		}
+		return false;
+	}
+
+	/**
+	 * Look up the message on a tile, reusing the last result while neither the tile nor the
+	 * published scene changed
+	 *
+	 * @return the message with its menu target and actions, or null if there is none
+	 */
+	private HoveredMessage findHoveredMessage(Tile tile)
+	{
+		SceneSnapshot scene = snapshot;
+		if (tile == menuTile && scene.getVersion() == menuSceneVersion)
+		{
+			return hoveredMessage;
+		}
+		menuTile = tile;
+		menuSceneVersion = scene.getVersion();
+
+		WorldPoint worldPoint = tile.getWorldLocation();
+		MessageData message = worldPoint != null ? findMessageAtWorldPoint(worldPoint) : null;
+		if (message == null)
+		{
+			hoveredMessage = null;
+		}
+		else if (hoveredMessage == null || hoveredMessage.message != message)
+		{
+			hoveredMessage = new HoveredMessage(message);
+		}
+		return hoveredMessage;
+	}
 
+	private MessageData findMessageAtWorldPoint(WorldPoint worldPoint)
+	{
+		// Check each active message to see if it's at this world point. Dormant messages
+		// beyond the activation radius have no marker to click.
+		SceneSnapshot scene = snapshot;
+		for (int i = 0; i < scene.size(); i++)
+		{
+			MessageData message = scene.get(i);
 			// Compare world coordinates directly
 			if (message.getX() == worldPoint.getX() &&
 				message.getY() == worldPoint.getY() &&
@@ -574,8 +1168,8 @@ public class RuneMessagesPlugin extends Plugin
 			return;
 		}
 
-		// Check if already voted on this message
-		if (votedMessages.contains(message.getId()))
+		// Check if already voted on this message, the vote shows right away
+		if (votedMessages.contains(message.getId()) || !voteLedger.cast(message, thumbsUp))
 		{
 			String chatMsg = new ChatMessageBuilder()
 				.append(ColorScheme.PROGRESS_ERROR_COLOR, "You have already voted on this message.")
@@ -589,9 +1183,11 @@ public class RuneMessagesPlugin extends Plugin
 		}
 
 		messageService.rateMessage(message, thumbsUp)
-			.thenRun(() ->
+			.thenRun(() -> scheduler.submit(() ->
 			{
 				votedMessages.add(message.getId());
+				voteLedger.confirm(message.getId());
+
 				String voteType = thumbsUp ? "up" : "down";
 				log.info("Voted {} on message: {}", voteType, message.getId());
 
@@ -603,10 +1199,11 @@ public class RuneMessagesPlugin extends Plugin
 					.type(ChatMessageType.CONSOLE)
 					.runeLiteFormattedMessage(chatMsg)
 					.build());
-			})
+			}))
 			.exceptionally(ex ->
 			{
 				log.warn("Failed to vote on message: {}", ex.getMessage());
+				scheduler.submit(() -> voteLedger.cancel(message.getId()));
 				return null;
 			});
 	}
@@ -637,9 +1234,16 @@ public class RuneMessagesPlugin extends Plugin
 		String reporterName = localPlayer != null ? localPlayer.getName() : "Unknown";
 
 		messageService.reportMessage(message, reporterName)
-			.thenRun(() ->
+			.thenRun(() -> scheduler.submit(() ->
 			{
 				reportedMessages.add(message.getId());
+				message.setReported(true);
+
+				MessageData cached = regionCache.find(message.getId());
+				if (cached != null)
+				{
+					cached.setReported(true);
+				}
 
 				String chatMsg = new ChatMessageBuilder()
 					.append(ColorScheme.PROGRESS_ERROR_COLOR, "Message has been reported.")
@@ -649,7 +1253,7 @@ public class RuneMessagesPlugin extends Plugin
 					.type(ChatMessageType.CONSOLE)
 					.runeLiteFormattedMessage(chatMsg)
 					.build());
-			})
+			}))
 			.exceptionally(ex ->
 			{
 				log.warn("Failed to report message: {}", ex.getMessage());
@@ -671,7 +1275,7 @@ public class RuneMessagesPlugin extends Plugin
 		final MarkerType selectedMarker = markerType != null ? markerType : MarkerType.NOTE;
 
 		// Must run on client thread to access game state
-		clientThread.invokeLater(() ->
+		scheduler.submit(() ->
 		{
 			Player localPlayer = client.getLocalPlayer();
 			if (localPlayer == null)
@@ -727,28 +1331,17 @@ public class RuneMessagesPlugin extends Plugin
 	 */
 	public void removeMessage(String messageId)
 	{
-		clientThread.invokeLater(() -> {
-			// Remove the grave object
-			RuneLiteObject grave = spawnedGraves.remove(messageId);
-			if (grave != null)
-			{
-				grave.setActive(false);
-			}
-
-			// Remove from message data
-			MessageData data = messageDataMap.remove(messageId);
-
-			// Remove from occupied locations
-			if (data != null)
+		scheduler.submit(() -> {
+			// Remove the grave object, message data and occupied location
+			unloadMessage(messageId);
+
+			// Remove from region cache, and from disk if it was placed with sync disabled
+			regionCache.remove(messageId);
+			worldIndex.remove(messageId);
+			localStore.remove(messageId);
+			if (log.isDebugEnabled())
 			{
-				String locationKey = data.getX() + "," + data.getY() + "," + data.getPlane();
-				occupiedLocations.remove(locationKey);
-			}
-
-			// Remove from region cache
-			for (List<MessageData> messages : regionMessageCache.values())
-			{
-				messages.removeIf(m -> m.getId().equals(messageId));
+				regionCache.verifyIndex();
 			}
 
 			sendChatMessage("Message deleted successfully!");
@@ -780,21 +1373,22 @@ public class RuneMessagesPlugin extends Plugin
 			messageService.saveMessage(location, message.trim(), author, worldId, modelId)
 				.thenAccept(data ->
 				{
-					clientThread.invokeLater(() ->
+					scheduler.submit(() ->
 					{
+						worldIndex.put(data);
 						if (spawnGrave(data))
 						{
-							messageDataMap.put(data.getId(), data);
-							occupiedLocations.add(locationKey);
+							loadMessage(data);
 							sendChatMessage("Message placed successfully!");
 						}
+						messagePanel.onMessageSaved(data);
 					});
 				})
 				.exceptionally(ex ->
 				{
 					String errorMsg = ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage();
 					log.warn("Failed to save message: {}", errorMsg);
-					clientThread.invokeLater(() ->
+					scheduler.submit(() ->
 						sendChatMessage(errorMsg)
 					);
 					return null;
@@ -802,9 +1396,8 @@ public class RuneMessagesPlugin extends Plugin
 		}
 		else
 		{
-			// Local only - no limits
+			// Local only - no limits. The store assigns the id.
 			MessageData localData = MessageData.builder()
-				.id("local-" + System.currentTimeMillis())
 				.author(author)
 				.message(message.trim())
 				.x(location.getX())
@@ -815,10 +1408,14 @@ public class RuneMessagesPlugin extends Plugin
 				.timestamp(System.currentTimeMillis())
 				.modelId(modelId)
 				.build();
+			if (!localStore.add(localData))
+			{
+				sendChatMessage("Unable to save the message locally.");
+				return;
+			}
 			if (spawnGrave(localData))
 			{
-				messageDataMap.put(localData.getId(), localData);
-				occupiedLocations.add(locationKey);
+				loadMessage(localData);
 				sendChatMessage("Message placed locally (sync disabled).");
 			}
 		}
@@ -841,37 +1438,232 @@ public class RuneMessagesPlugin extends Plugin
 	{
 		if (!config.showOtherMessages())
 		{
+			List<MessageData> localMessages = getLocalMessages(worldId, regionId);
+			if (!localMessages.isEmpty())
+			{
+				cacheRegion(worldId, regionId, Collections.emptyList(), localMessages);
+			}
 			return;
 		}
 
-		// Always fetch fresh from API - this ensures random selection each visit
+		// Served from the world download when there is one, no request needed
+		if (config.worldSnapshot() && worldIndex.isReady(worldId))
+		{
+			cacheRegion(worldId, regionId, worldIndex.getRegionMessages(regionId), getLocalMessages(worldId, regionId));
+			return;
+		}
+
+		// A cached region renders right away, and is only fetched again in the
+		// background once it is older than its learned TTL
+		if (regionCache.get(worldId, regionId) != null)
+		{
+			spawnMessagesFromCache(worldId, regionId);
+			revalidateIfStale(worldId, regionId);
+			return;
+		}
+
+		long key = RegionCache.key(worldId, regionId);
+		if (freshness.isPending(key))
+		{
+			return;
+		}
+		if (freshness.isBackingOff(key, System.currentTimeMillis()))
+		{
+			// The last fetch failed, try again on a later tick once its retry delay passed
+			loadedRegions.remove(regionId);
+			return;
+		}
+
+		// Nothing cached, so the markers wait for the request
+		List<MessageData> localMessages = getLocalMessages(worldId, regionId);
+		freshness.markPending(key);
 		messageService.getMessagesForRegion(worldId, regionId)
-			.thenAccept(messages ->
+			.thenAccept(messages -> scheduler.submit(() ->
 			{
-				// Store temporarily for spawning
-				String cacheKey = worldId + ":" + regionId;
-				regionMessageCache.put(cacheKey, new ArrayList<>(messages));
+				freshness.fetched(key, messages, System.currentTimeMillis());
+				cacheRegion(worldId, regionId, messages, localMessages);
+			}))
+			.exceptionally(ex ->
+			{
+				logFetchFailure("load messages for region " + regionId, ex);
+				scheduler.submit(() ->
+				{
+					freshness.failed(key, System.currentTimeMillis());
+					if (!localMessages.isEmpty())
+					{
+						// Cached now, so the tick loop revalidates it once the retry delay passed
+						cacheRegion(worldId, regionId, Collections.emptyList(), localMessages);
+					}
+					else if (worldId == currentWorld)
+					{
+						// Load it again on the next tick while it is still in view
+						loadedRegions.remove(regionId);
+					}
+				});
+				return null;
+			});
+	}
 
-				clientThread.invokeLater(() -> spawnMessagesFromCache(worldId, regionId));
-			})
+	/**
+	 * Failures while the circuit breaker is open are expected and only logged at debug level
+	 */
+	private static void logFetchFailure(String action, Throwable ex)
+	{
+		Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+		if (cause instanceof CircuitOpenException)
+		{
+			log.debug("Unable to {}: {}", action, cause.getMessage());
+		}
+		else
+		{
+			log.warn("Failed to {}: {}", action, cause.getMessage());
+		}
+	}
+
+	/**
+	 * @return new copies of the region's locally stored messages, without those the content filter blocks
+	 */
+	private List<MessageData> getLocalMessages(int worldId, int regionId)
+	{
+		// Stored messages never pass through the service, so they are filtered here
+		List<MessageData> messages = localStore.getRegionMessages(worldId, regionId);
+		messageService.getContentFilter().filter(messages);
+		return messages;
+	}
+
+	private void cacheRegion(int worldId, int regionId, List<MessageData> messages, List<MessageData> localMessages)
+	{
+		// Store temporarily for spawning
+		List<MessageData> regionMessages = new ArrayList<>(messages.size() + localMessages.size());
+		regionMessages.addAll(messages);
+		regionMessages.addAll(localMessages);
+		regionCache.put(worldId, regionId, regionMessages);
+
+		spawnMessagesFromCache(worldId, regionId);
+	}
+
+	/**
+	 * Fetch a cached region again in the background if its data has outlived its TTL
+	 */
+	private void revalidateIfStale(int worldId, int regionId)
+	{
+		long key = RegionCache.key(worldId, regionId);
+		if (!freshness.needsRefresh(key, System.currentTimeMillis()))
+		{
+			return;
+		}
+
+		log.debug("Revalidating region {} (TTL {}s)", regionId, freshness.getTtl(key) / 1000);
+		freshness.markPending(key);
+		List<MessageData> localMessages = getLocalMessages(worldId, regionId);
+		messageService.getMessagesForRegion(worldId, regionId)
+			.thenAccept(messages -> scheduler.submit(() ->
+			{
+				freshness.fetched(key, messages, System.currentTimeMillis());
+				mergeRegion(worldId, regionId, messages, localMessages);
+			}))
 			.exceptionally(ex ->
 			{
-				log.warn("Failed to load messages for region {}: {}", regionId, ex.getMessage());
+				logFetchFailure("revalidate region " + regionId, ex);
+				scheduler.submit(() ->
+				{
+					freshness.failed(key, System.currentTimeMillis());
+				});
 				return null;
 			});
 	}
 
+	/**
+	 * Bring a cached region up to date. Deleted messages leave the cache and the scene, and vote
+	 * counts are refreshed in place. New messages are cached, and while the region is in view
+	 * they are spawned as long as it shows fewer than the per-region cap; the player's own
+	 * messages always are.
+	 */
+	private void mergeRegion(int worldId, int regionId, List<MessageData> messages, List<MessageData> localMessages)
+	{
+		List<MessageData> cached = regionCache.get(worldId, regionId);
+		if (cached == null)
+		{
+			// Evicted while the request was in flight
+			return;
+		}
+
+		Map<String, MessageData> fresh = new LinkedHashMap<>();
+		for (MessageData message : messages)
+		{
+			fresh.put(message.getId(), message);
+		}
+		for (MessageData message : localMessages)
+		{
+			fresh.put(message.getId(), message);
+		}
+
+		int shown = 0;
+		for (MessageData message : new ArrayList<>(cached))
+		{
+			String id = message.getId();
+			MessageData current = fresh.remove(id);
+			if (current != null)
+			{
+				message.setVotes(current.getThumbsUp(), current.getThumbsDown());
+				voteLedger.reconcile(message);
+				if (messageDataMap.containsKey(id))
+				{
+					shown++;
+				}
+				continue;
+			}
+
+			regionCache.remove(id);
+			spawnQueue.removeIf(m -> m.getId().equals(id));
+			if (unloadMessage(id) != null)
+			{
+				metrics.recordCleanup(1);
+			}
+		}
+
+		// What is left is new
+		boolean visible = worldId == currentWorld && loadedRegions.contains(regionId);
+		Player localPlayer = client.getLocalPlayer();
+		String localPlayerName = localPlayer != null ? localPlayer.getName() : "";
+		WorldPoint playerLocation = localPlayer != null ? localPlayer.getWorldLocation() : null;
+		for (MessageData message : fresh.values())
+		{
+			regionCache.add(worldId, regionId, message);
+			if (!visible)
+			{
+				continue;
+			}
+
+			boolean own = message.getAuthor().equalsIgnoreCase(localPlayerName);
+			if (own ? config.showOwnMessages() : shown < MAX_MESSAGES_PER_REGION)
+			{
+				queueSpawn(message, playerLocation, own);
+				shown += own ? 0 : 1;
+			}
+		}
+	}
+
 	private void spawnMessagesFromCache(int worldId, int regionId)
 	{
-		String cacheKey = worldId + ":" + regionId;
-		List<MessageData> allMessages = regionMessageCache.get(cacheKey);
-		if (allMessages == null || allMessages.isEmpty())
+		List<MessageData> allMessages = regionCache.get(worldId, regionId);
+		if (allMessages == null)
+		{
+			metrics.recordCacheMiss();
+			return;
+		}
+		metrics.recordCacheHit();
+
+		// A region loaded again before its spawns drained is sampled again, not queued twice
+		spawnQueue.cancelRegion(worldId, regionId);
+		if (allMessages.isEmpty())
 		{
 			return;
 		}
 
 		Player localPlayer = client.getLocalPlayer();
 		String localPlayerName = localPlayer != null ? localPlayer.getName() : "";
+		WorldPoint playerLocation = localPlayer != null ? localPlayer.getWorldLocation() : null;
 
 		// Separate own messages from others - own messages ALWAYS load first
 		List<MessageData> ownMessages = new ArrayList<>();
@@ -893,8 +1685,8 @@ public class RuneMessagesPlugin extends Plugin
 					msg.getId(), msg.getRegionId(), regionId);
 				continue;
 			}
-			// Skip already spawned
-			if (spawnedGraves.containsKey(msg.getId()))
+			// Skip already loaded
+			if (messageDataMap.containsKey(msg.getId()))
 			{
 				continue;
 			}
@@ -914,94 +1706,92 @@ public class RuneMessagesPlugin extends Plugin
 		}
 
 		// ALWAYS spawn player's own messages first (no limit)
-		int ownSpawned = 0;
-		for (MessageData msg : ownMessages)
-		{
-			String locationKey = msg.getX() + "," + msg.getY() + "," + msg.getPlane();
-			if (occupiedLocations.contains(locationKey))
-			{
-				continue;
-			}
-			if (spawnGrave(msg))
-			{
-				messageDataMap.put(msg.getId(), msg);
-				occupiedLocations.add(locationKey);
-				ownSpawned++;
-			}
-		}
+		List<MessageData> messagesToSpawn = new ArrayList<>(ownMessages);
 
 		// Now handle other players' messages with the voting algorithm
-		if (otherMessages.isEmpty() || !config.showOtherMessages())
+		int topVotedCount = 0;
+		int randomCount = 0;
+		if (!otherMessages.isEmpty() && config.showOtherMessages())
 		{
-			if (ownSpawned > 0)
-			{
-				log.debug("Loaded {} own messages for region {}", ownSpawned, regionId);
-			}
-			return;
+			// Sort by vote score (thumbsUp - thumbsDown) descending
+			otherMessages.sort(Comparator.comparingInt(
+				(MessageData m) -> VoteLedger.score(voteLedger.counts(m))
+			).reversed());
+
+			// Take top 10 voted
+			List<MessageData> topVoted = otherMessages.stream()
+				.limit(TOP_VOTED_COUNT)
+				.collect(Collectors.toList());
+
+			// Get remaining messages (after top 10)
+			List<MessageData> remaining = otherMessages.stream()
+				.skip(TOP_VOTED_COUNT)
+				.collect(Collectors.toList());
+
+			// Shuffle the remaining and take up to (MAX - top10) random ones
+			Collections.shuffle(remaining);
+			randomCount = Math.min(remaining.size(), MAX_MESSAGES_PER_REGION - topVoted.size());
+			topVotedCount = topVoted.size();
+
+			// Combine: top voted + random picks
+			messagesToSpawn.addAll(topVoted);
+			messagesToSpawn.addAll(remaining.subList(0, randomCount));
 		}
 
-		// Sort by vote score (thumbsUp - thumbsDown) descending
-		otherMessages.sort(Comparator.comparingInt(
-			(MessageData m) -> m.getThumbsUp() - m.getThumbsDown()
-		).reversed());
-
-		// Take top 10 voted
-		List<MessageData> topVoted = otherMessages.stream()
-			.limit(TOP_VOTED_COUNT)
-			.collect(Collectors.toList());
+		if (!messagesToSpawn.isEmpty())
+		{
+			log.debug("Queued {} own + {} others for region {} (top {} voted + {} random)",
+				ownMessages.size(), topVotedCount + randomCount, regionId, topVotedCount, randomCount);
+		}
 
-		// Get remaining messages (after top 10)
-		List<MessageData> remaining = otherMessages.stream()
-			.skip(TOP_VOTED_COUNT)
-			.collect(Collectors.toList());
+		// Spawning loads models, so it is time-sliced through the spawn queue
+		for (int i = 0; i < messagesToSpawn.size(); i++)
+		{
+			queueSpawn(messagesToSpawn.get(i), playerLocation, i < ownMessages.size());
+		}
+	}
 
-		// Shuffle the remaining and take up to (MAX - top10) random ones
-		Collections.shuffle(remaining);
-		int randomCount = Math.min(remaining.size(), MAX_MESSAGES_PER_REGION - topVoted.size());
-		List<MessageData> randomPicks = remaining.stream()
-			.limit(randomCount)
-			.collect(Collectors.toList());
+	private void queueSpawn(MessageData message, WorldPoint playerLocation, boolean own)
+	{
+		int distance = playerLocation != null
+			? playerLocation.distanceTo(new WorldPoint(message.getX(), message.getY(), message.getPlane()))
+			: 0;
+		spawnQueue.add(message, distance, own);
+	}
 
-		// Combine: top voted + random picks
-		List<MessageData> messagesToSpawn = new ArrayList<>();
-		messagesToSpawn.addAll(topVoted);
-		messagesToSpawn.addAll(randomPicks);
+	/**
+	 * Load a selected message. Its marker is only created once the player is within the
+	 * activation radius, until then just the data is kept and refreshGraves activates it later.
+	 */
+	private void spawnCandidate(MessageData msg)
+	{
+		String locationKey = msg.getX() + "," + msg.getY() + "," + msg.getPlane();
 
-		// Spawn messages, avoiding duplicate locations
-		int othersSpawned = 0;
-		for (MessageData msg : messagesToSpawn)
+		// Skip if already loaded or the location already has a message
+		if (messageDataMap.containsKey(msg.getId()) || occupiedLocations.contains(locationKey))
 		{
-			String locationKey = msg.getX() + "," + msg.getY() + "," + msg.getPlane();
-
-			// Skip if location already has a message
-			if (occupiedLocations.contains(locationKey))
-			{
-				continue;
-			}
+			return;
+		}
 
-			// Spawn the grave
-			if (spawnGrave(msg))
-			{
-				messageDataMap.put(msg.getId(), msg);
-				occupiedLocations.add(locationKey);
-				othersSpawned++;
-			}
+		if (!hasValidRegion(msg))
+		{
+			return;
 		}
 
-		if (ownSpawned > 0 || othersSpawned > 0)
+		loadMessage(msg);
+
+		Player localPlayer = client.getLocalPlayer();
+		WorldPoint worldPoint = new WorldPoint(msg.getX(), msg.getY(), msg.getPlane());
+		if (localPlayer != null && localPlayer.getWorldLocation().distanceTo(worldPoint) <= config.activationRadius())
 		{
-			log.debug("Loaded {} own + {} others for region {} (top {} voted + {} random)",
-				ownSpawned, othersSpawned, regionId,
-				Math.min(topVoted.size(), othersSpawned),
-				Math.max(0, othersSpawned - topVoted.size()));
+			spawnGrave(msg);
 		}
 	}
 
-	private boolean spawnGrave(MessageData message)
+	private boolean hasValidRegion(MessageData message)
 	{
-		WorldPoint worldPoint = new WorldPoint(message.getX(), message.getY(), message.getPlane());
-
 		// Validate that the world point's region matches the stored region
+		WorldPoint worldPoint = new WorldPoint(message.getX(), message.getY(), message.getPlane());
 		int computedRegion = worldPoint.getRegionID();
 		if (computedRegion != message.getRegionId())
 		{
@@ -1009,8 +1799,19 @@ public class RuneMessagesPlugin extends Plugin
 				message.getId(), message.getX(), message.getY(), computedRegion, message.getRegionId());
 			return false;
 		}
+		return true;
+	}
+
+	private boolean spawnGrave(MessageData message)
+	{
+		if (!hasValidRegion(message))
+		{
+			return false;
+		}
 
-		LocalPoint localPoint = LocalPoint.fromWorld(client, worldPoint);
+		WorldPoint worldPoint = new WorldPoint(message.getX(), message.getY(), message.getPlane());
+		WorldView worldView = client.getTopLevelWorldView();
+		LocalPoint localPoint = worldView != null ? localPoints.get(worldView, message) : null;
 
 		if (localPoint == null)
 		{
@@ -1032,20 +1833,12 @@ public class RuneMessagesPlugin extends Plugin
 		grave.setActive(true);
 
 		spawnedGraves.put(message.getId(), grave);
+		sceneWriter.put(message, localPoint);
+		metrics.recordSpawn();
 		log.debug("Spawned grave for message {} at {}", message.getId(), worldPoint);
 		return true;
 	}
 
-	private void despawnGrave(String messageId)
-	{
-		RuneLiteObject grave = spawnedGraves.remove(messageId);
-		if (grave != null)
-		{
-			grave.setActive(false);
-		}
-		messageDataMap.remove(messageId);
-	}
-
 	private void clearAllGraves()
 	{
 		for (RuneLiteObject grave : spawnedGraves.values())
@@ -1053,6 +1846,7 @@ public class RuneMessagesPlugin extends Plugin
 			grave.setActive(false);
 		}
 		spawnedGraves.clear();
+		sceneWriter.clear();
 	}
 
 	@Provides
@@ -1060,4 +1854,28 @@ public class RuneMessagesPlugin extends Plugin
 	{
 		return configManager.getConfig(RuneMessagesConfig.class);
 	}
+
+	/**
+	 * A message under the cursor with its menu target and click handlers, built once per
+	 * hovered message rather than on every menu rebuild
+	 */
+	private final class HoveredMessage
+	{
+		private final MessageData message;
+		private final String target;
+		private final Consumer<MenuEntry> examine;
+		private final Consumer<MenuEntry> voteUp;
+		private final Consumer<MenuEntry> voteDown;
+		private final Consumer<MenuEntry> report;
+
+		private HoveredMessage(MessageData message)
+		{
+			this.message = message;
+			this.target = "<col=ffff00>" + message.getAuthor() + "'s Message</col>";
+			this.examine = e -> examineMessage(message);
+			this.voteUp = e -> voteMessage(message, true);
+			this.voteDown = e -> voteMessage(message, false);
+			this.report = e -> reportMessage(message);
+		}
+	}
 }
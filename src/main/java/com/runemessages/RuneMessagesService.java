@@ -25,528 +25,441 @@
 package com.runemessages;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.coords.WorldPoint;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
+import net.runelite.client.RuneLite;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
+/**
+ * Facade over the active {@link MessageBackend}. Keeps the API key, rejects calls that need
+ * one when it is missing, and records request metrics for every backend alike.
+ * <p>
+ * Every endpoint has a circuit breaker that fails calls fast while the endpoint keeps failing.
+ * Reads are retried with exponential backoff and jitter when the failure may pass, writes
+ * are not, since they might have been applied.
+ */
 @Slf4j
 @Singleton
 public class RuneMessagesService
 {
-	private static final String API_URL = "https://runemessages-api-production.up.railway.app";
-	private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+	static final File RECORDING_FILE = new File(new File(RuneLite.RUNELITE_DIR, "runemessages"), "recording.jsonl");
+
+	private static final int READ_RETRIES = 2;
+	private static final long BASE_BACKOFF_MILLIS = 500;
+	private static final long MAX_BACKOFF_MILLIS = 8_000;
+	private static final int BREAKER_FAILURES = 5;
+	private static final long BREAKER_COOLDOWN_MILLIS = 10_000;
+	private static final long BREAKER_MAX_COOLDOWN_MILLIS = 5 * 60_000;
+	// Hedge only once the endpoint's p95 is known, and for at most this share of its requests
+	private static final int MIN_HEDGE_SAMPLES = 20;
+	private static final double MAX_HEDGE_RATE = 0.1;
+	private static final long MIN_HEDGE_DELAY_MILLIS = 50;
 
 	private final OkHttpClient httpClient;
 	private final Gson gson;
+	private final RuneMessagesMetrics metrics;
+
+	private volatile MessageBackend backend;
+	private final Map<ApiEndpoint, CircuitBreaker> breakers = new EnumMap<>(ApiEndpoint.class);
+
+	/**
+	 * Send a second region request when the first is slower than the endpoint's p95
+	 */
+	@Setter
+	private volatile boolean hedging;
+
+	/**
+	 * Runs hedges once their delay passed, replaced by tests to send them when they choose
+	 */
+	@Setter(AccessLevel.PACKAGE)
+	private volatile HedgeTimer hedgeTimer =
+		(task, delayMillis) -> CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(task);
+
+	/**
+	 * Blocked messages are dropped from region and world responses before the plugin sees them
+	 */
+	@Getter
+	@Setter
+	private volatile ContentFilter contentFilter = ContentFilter.EMPTY;
 
 	@Getter
 	@Setter
 	private String apiKey;
 
 	@Inject
-	public RuneMessagesService(OkHttpClient httpClient, Gson gson)
+	public RuneMessagesService(OkHttpClient httpClient, Gson gson, RuneMessagesMetrics metrics)
 	{
 		this.httpClient = httpClient;
 		this.gson = gson;
+		this.metrics = metrics;
+		this.backend = new HttpMessageBackend(httpClient, gson, metrics, HttpMessageBackend.DEFAULT_API_URL);
+		for (ApiEndpoint endpoint : ApiEndpoint.values())
+		{
+			breakers.put(endpoint, new CircuitBreaker(BREAKER_FAILURES, BREAKER_COOLDOWN_MILLIS, BREAKER_MAX_COOLDOWN_MILLIS));
+		}
 	}
 
-	public CompletableFuture<String> register(String username)
+	/**
+	 * Switch where messages come from and go to
+	 */
+	public void useBackend(BackendMode mode)
 	{
-		CompletableFuture<String> future = new CompletableFuture<>();
-
-		JsonObject body = new JsonObject();
-		body.addProperty("username", username);
-
-		Request request = new Request.Builder()
-			.url(API_URL + "/register")
-			.post(RequestBody.create(JSON, gson.toJson(body)))
-			.build();
-
-		httpClient.newCall(request).enqueue(new Callback()
+		switch (mode)
 		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.warn("Failed to register: {}", e.getMessage());
-				future.completeExceptionally(e);
-			}
-
-			@Override
-			public void onResponse(Call call, Response response) throws IOException
-			{
+			case RECORD:
+				setBackend(FileMessageBackend.record(liveBackend(), gson, RECORDING_FILE));
+				break;
+			case REPLAY:
 				try
 				{
-					if (!response.isSuccessful())
-					{
-						future.completeExceptionally(new IOException("Registration failed: HTTP " + response.code()));
-						return;
-					}
-
-					String responseBody = response.body().string();
-					JsonObject json = gson.fromJson(responseBody, JsonObject.class);
-
-					if (json.has("apiKey"))
-					{
-						String key = json.get("apiKey").getAsString();
-						apiKey = key;
-						future.complete(key);
-					}
-					else
-					{
-						future.completeExceptionally(new IOException("No API key in response"));
-					}
+					setBackend(FileMessageBackend.replay(gson, RECORDING_FILE));
 				}
-				finally
+				catch (IOException e)
 				{
-					response.close();
+					log.warn("Unable to load recording {}, playing offline instead", RECORDING_FILE, e);
+					setBackend(new InMemoryMessageBackend());
 				}
-			}
-		});
+				break;
+			case OFFLINE:
+				setBackend(new InMemoryMessageBackend());
+				break;
+			default:
+				setBackend(liveBackend());
+				break;
+		}
+		log.debug("Using {} message backend", mode);
+	}
 
-		return future;
+	/**
+	 * Replace the backend, e.g. with one pointing at the simulation's local stand-in
+	 */
+	void setBackend(MessageBackend backend)
+	{
+		MessageBackend previous = this.backend;
+		this.backend = backend;
+		previous.close();
 	}
 
-	public CompletableFuture<Boolean> verifyApiKey(String key)
+	/**
+	 * Release the backend's files and connections, it reopens them when used again
+	 */
+	public void close()
 	{
-		CompletableFuture<Boolean> future = new CompletableFuture<>();
+		backend.close();
+	}
 
-		Request request = new Request.Builder()
-			.url(API_URL + "/verify")
-			.header("X-API-Key", key)
-			.get()
-			.build();
+	public CircuitBreaker.State getCircuitState(ApiEndpoint endpoint)
+	{
+		return breakers.get(endpoint).getState(System.currentTimeMillis());
+	}
 
-		httpClient.newCall(request).enqueue(new Callback()
-		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.warn("Failed to verify API key: {}", e.getMessage());
-				future.complete(false);
-			}
+	/**
+	 * @return milliseconds until an open endpoint is tried again, 0 if it is not open
+	 */
+	public long getCircuitRetryInMillis(ApiEndpoint endpoint)
+	{
+		return breakers.get(endpoint).getRetryInMillis(System.currentTimeMillis());
+	}
 
-			@Override
-			public void onResponse(Call call, Response response)
+	private MessageBackend liveBackend()
+	{
+		return new HttpMessageBackend(httpClient, gson, metrics, HttpMessageBackend.DEFAULT_API_URL);
+	}
+
+	public CompletableFuture<String> register(String username)
+	{
+		return call(ApiEndpoint.REGISTER, 0, () -> backend.register(username))
+			.thenApply(key ->
 			{
-				response.close();
-				future.complete(response.isSuccessful());
-			}
-		});
+				apiKey = key;
+				return key;
+			});
+	}
 
-		return future;
+	public CompletableFuture<Boolean> verifyApiKey(String key)
+	{
+		return call(ApiEndpoint.VERIFY, READ_RETRIES, () -> backend.verifyApiKey(key))
+			.exceptionally(ex -> false);
 	}
 
 	public CompletableFuture<List<MessageData>> getMessagesForRegion(int worldId, int regionId)
 	{
-		CompletableFuture<List<MessageData>> future = new CompletableFuture<>();
-
-		String url = API_URL + "/messages?worldId=" + worldId + "&regionId=" + regionId;
-
-		Request request = new Request.Builder()
-			.url(url)
-			.get()
-			.build();
-
-		httpClient.newCall(request).enqueue(new Callback()
-		{
-			@Override
-			public void onFailure(Call call, IOException e)
+		return call(ApiEndpoint.REGION, READ_RETRIES,
+			() -> hedged(ApiEndpoint.REGION, () -> backend.getRegionMessages(worldId, regionId)))
+			.thenApply(messages ->
 			{
-				log.warn("Failed to fetch messages for region {}: {}", regionId, e.getMessage());
-				future.completeExceptionally(e);
-			}
+				contentFilter.filter(messages);
+				return messages;
+			});
+	}
 
-			@Override
-			public void onResponse(Call call, Response response) throws IOException
+	/**
+	 * Fetch every message of a world, or only the changes after a version returned earlier
+	 */
+	public CompletableFuture<WorldSnapshot> getWorldSnapshot(int worldId, long since)
+	{
+		return call(ApiEndpoint.WORLD, READ_RETRIES, () -> backend.getWorldSnapshot(worldId, since))
+			.thenApply(snapshot ->
 			{
-				try
-				{
-					if (!response.isSuccessful())
-					{
-						log.warn("Failed to fetch messages: HTTP {}", response.code());
-						future.complete(new ArrayList<>());
-						return;
-					}
-
-					String responseBody = response.body().string();
-					List<MessageData> messages = parseMessageArray(responseBody);
-					log.debug("Fetched {} messages for region {}", messages.size(), regionId);
-					future.complete(messages);
-				}
-				finally
-				{
-					response.close();
-				}
-			}
-		});
-
-		return future;
+				contentFilter.filter(snapshot.getMessages());
+				return snapshot;
+			});
 	}
 
-	public CompletableFuture<List<MessageData>> getAllAuthorMessages()
+	/**
+	 * Fetch one page of the authenticated author's messages, newest first.
+	 * Pass a null cursor for the first page and the returned cursor for each page after it.
+	 */
+	public CompletableFuture<MessagePage> getAuthorMessagesPage(String cursor, int limit)
 	{
-		CompletableFuture<List<MessageData>> future = new CompletableFuture<>();
-
 		if (apiKey == null || apiKey.isEmpty())
 		{
-			log.warn("getAllAuthorMessages: No API key set");
-			future.complete(new ArrayList<>());
-			return future;
+			log.warn("getAuthorMessagesPage: No API key set");
+			return CompletableFuture.completedFuture(MessagePage.EMPTY);
 		}
-
-		String url = API_URL + "/messages/mine";
-		log.debug("Fetching all author messages from: {}", url);
-
-		Request request = new Request.Builder()
-			.url(url)
-			.header("X-API-Key", apiKey)
-			.get()
-			.build();
-
-		httpClient.newCall(request).enqueue(new Callback()
-		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.warn("Failed to fetch author messages: {}", e.getMessage());
-				future.complete(new ArrayList<>());
-			}
-
-			@Override
-			public void onResponse(Call call, Response response) throws IOException
-			{
-				try
-				{
-					if (!response.isSuccessful())
-					{
-						log.warn("getAllAuthorMessages failed: HTTP {}", response.code());
-						future.complete(new ArrayList<>());
-						return;
-					}
-
-					String responseBody = response.body().string();
-					log.debug("getAllAuthorMessages response: {}", responseBody);
-					List<MessageData> messages = parseMessageArray(responseBody);
-					log.debug("Parsed {} messages from /messages/mine", messages.size());
-					future.complete(messages);
-				}
-				finally
-				{
-					response.close();
-				}
-			}
-		});
-
-		return future;
+		return call(ApiEndpoint.AUTHOR, READ_RETRIES, () -> backend.getAuthorMessagesPage(apiKey, cursor, limit));
 	}
 
 	public CompletableFuture<MessageData> saveMessage(WorldPoint location, String message, String author, int worldId, int modelId)
 	{
-		CompletableFuture<MessageData> future = new CompletableFuture<>();
-
 		if (apiKey == null || apiKey.isEmpty())
 		{
-			future.completeExceptionally(new IOException("Not authenticated"));
-			return future;
+			return notAuthenticated();
 		}
 
-		int regionId = location.getRegionID();
-
-		JsonObject body = new JsonObject();
-		body.addProperty("worldId", worldId);
-		body.addProperty("regionId", regionId);
-		body.addProperty("message", message);
-		body.addProperty("x", location.getX());
-		body.addProperty("y", location.getY());
-		body.addProperty("plane", location.getPlane());
-		body.addProperty("modelId", modelId);
-
-		Request request = new Request.Builder()
-			.url(API_URL + "/messages")
-			.header("X-API-Key", apiKey)
-			.post(RequestBody.create(JSON, gson.toJson(body)))
+		MessageData draft = MessageData.builder()
+			.author(author)
+			.message(message)
+			.x(location.getX())
+			.y(location.getY())
+			.plane(location.getPlane())
+			.worldId(worldId)
+			.regionId(location.getRegionID())
+			.modelId(modelId)
 			.build();
-
-		httpClient.newCall(request).enqueue(new Callback()
-		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.warn("Failed to save message: {}", e.getMessage());
-				future.completeExceptionally(e);
-			}
-
-			@Override
-			public void onResponse(Call call, Response response) throws IOException
-			{
-				try
-				{
-					String responseBody = response.body().string();
-
-					if (!response.isSuccessful())
-					{
-						try
-						{
-							JsonObject errorJson = gson.fromJson(responseBody, JsonObject.class);
-							String errorMsg = errorJson.has("error") ? errorJson.get("error").getAsString() : "Unknown error";
-							future.completeExceptionally(new IOException(errorMsg));
-						}
-						catch (Exception e)
-						{
-							future.completeExceptionally(new IOException("HTTP " + response.code()));
-						}
-						return;
-					}
-
-					MessageData data = gson.fromJson(responseBody, MessageData.class);
-					log.debug("Saved message '{}' by {} at region {}", message, author, regionId);
-					future.complete(data);
-				}
-				finally
-				{
-					response.close();
-				}
-			}
-		});
-
-		return future;
+		return call(ApiEndpoint.SAVE, 0, () -> backend.saveMessage(apiKey, draft));
 	}
 
 	public CompletableFuture<Void> deleteMessage(int worldId, int regionId, String messageId)
 	{
-		CompletableFuture<Void> future = new CompletableFuture<>();
-
 		if (apiKey == null || apiKey.isEmpty())
 		{
-			future.completeExceptionally(new IOException("Not authenticated"));
-			return future;
+			return notAuthenticated();
 		}
-
-		String url = API_URL + "/messages/" + worldId + "/" + regionId + "/" + messageId;
-
-		Request request = new Request.Builder()
-			.url(url)
-			.header("X-API-Key", apiKey)
-			.delete()
-			.build();
-
-		httpClient.newCall(request).enqueue(new Callback()
-		{
-			@Override
-			public void onFailure(Call call, IOException e)
-			{
-				log.warn("Failed to delete message: {}", e.getMessage());
-				future.completeExceptionally(e);
-			}
-
-			@Override
-			public void onResponse(Call call, Response response)
-			{
-				response.close();
-				if (response.isSuccessful())
-				{
-					log.debug("Deleted message {}", messageId);
-					future.complete(null);
-				}
-				else
-				{
-					future.completeExceptionally(new IOException("HTTP " + response.code()));
-				}
-			}
-		});
-
-		return future;
+		return call(ApiEndpoint.DELETE, 0, () -> backend.deleteMessage(apiKey, worldId, regionId, messageId));
 	}
 
 	public CompletableFuture<Void> rateMessage(MessageData message, boolean thumbsUp)
 	{
-		CompletableFuture<Void> future = new CompletableFuture<>();
-
 		if (apiKey == null || apiKey.isEmpty())
 		{
-			future.completeExceptionally(new IOException("Not authenticated"));
-			return future;
+			return notAuthenticated();
 		}
+		return call(ApiEndpoint.VOTE, 0, () -> backend.rateMessage(apiKey, message, thumbsUp));
+	}
 
-		String url = API_URL + "/messages/" + message.getWorldId() + "/" + message.getRegionId() + "/" + message.getId() + "/vote";
+	public CompletableFuture<Void> reportMessage(MessageData message, String reporterName)
+	{
+		if (apiKey == null || apiKey.isEmpty())
+		{
+			return notAuthenticated();
+		}
+		return call(ApiEndpoint.REPORT, 0, () -> backend.reportMessage(apiKey, message, "Reported by " + reporterName));
+	}
 
-		JsonObject body = new JsonObject();
-		body.addProperty("vote", thumbsUp ? "up" : "down");
+	/**
+	 * Make a call through the endpoint's circuit breaker, retrying up to the given number of
+	 * times while the failure may pass
+	 */
+	private <T> CompletableFuture<T> call(ApiEndpoint endpoint, int retries, Supplier<CompletableFuture<T>> call)
+	{
+		CompletableFuture<T> result = new CompletableFuture<>();
+		attempt(endpoint, retries, 0, call, result);
+		return result;
+	}
 
-		Request request = new Request.Builder()
-			.url(url)
-			.header("X-API-Key", apiKey)
-			.post(RequestBody.create(JSON, gson.toJson(body)))
-			.build();
+	private <T> void attempt(ApiEndpoint endpoint, int retries, int attempt, Supplier<CompletableFuture<T>> call, CompletableFuture<T> result)
+	{
+		CircuitBreaker breaker = breakers.get(endpoint);
+		if (!breaker.tryAcquire(System.currentTimeMillis()))
+		{
+			metrics.recordRejected(endpoint);
+			result.completeExceptionally(new CircuitOpenException(endpoint, breaker.getRetryInMillis(System.currentTimeMillis())));
+			return;
+		}
 
-		httpClient.newCall(request).enqueue(new Callback()
+		timed(endpoint, call).whenComplete((value, ex) ->
 		{
-			@Override
-			public void onFailure(Call call, IOException e)
+			if (ex == null)
 			{
-				log.warn("Failed to vote on message: {}", e.getMessage());
-				future.completeExceptionally(e);
+				breaker.onSuccess();
+				result.complete(value);
+				return;
 			}
 
-			@Override
-			public void onResponse(Call call, Response response) throws IOException
+			Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+			if (!isRetryable(cause))
 			{
-				try
-				{
-					if (response.isSuccessful())
-					{
-						if (thumbsUp)
-						{
-							message.setThumbsUp(message.getThumbsUp() + 1);
-						}
-						else
-						{
-							message.setThumbsDown(message.getThumbsDown() + 1);
-						}
-						log.debug("Voted {} on message {}", thumbsUp ? "up" : "down", message.getId());
-						future.complete(null);
-					}
-					else
-					{
-						String responseBody = response.body().string();
-						try
-						{
-							JsonObject errorJson = gson.fromJson(responseBody, JsonObject.class);
-							String errorMsg = errorJson.has("error") ? errorJson.get("error").getAsString() : "Vote failed";
-							future.completeExceptionally(new IOException(errorMsg));
-						}
-						catch (Exception e)
-						{
-							future.completeExceptionally(new IOException("HTTP " + response.code()));
-						}
-					}
-				}
-				finally
-				{
-					response.close();
-				}
+				// Not a sign of an outage, callers back off from refused calls themselves
+				breaker.onRefused();
+				result.completeExceptionally(cause);
+				return;
 			}
-		});
 
-		return future;
+			if (breaker.onFailure(System.currentTimeMillis()))
+			{
+				metrics.recordCircuitOpened(endpoint);
+				log.warn("{} requests are failing, pausing them for {}s", endpoint,
+					breaker.getRetryInMillis(System.currentTimeMillis()) / 1000);
+			}
+			if (attempt >= retries)
+			{
+				result.completeExceptionally(cause);
+				return;
+			}
+
+			metrics.recordRetry(endpoint);
+			long delay = backoffMillis(attempt);
+			log.debug("Retrying {} request in {}ms: {}", endpoint, delay, cause.getMessage());
+			CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+				.execute(() -> attempt(endpoint, retries, attempt + 1, call, result));
+		});
 	}
 
-	public CompletableFuture<Void> reportMessage(MessageData message, String reporterName)
+	/**
+	 * Make an idempotent read, and if no answer arrived within the endpoint's p95 latency make
+	 * it again. Whichever answers first is used and the other is cancelled. Hedges are capped
+	 * at a share of the endpoint's requests, so a slow server does not get twice the load.
+	 */
+	private <T> CompletableFuture<T> hedged(ApiEndpoint endpoint, Supplier<CompletableFuture<T>> call)
 	{
-		CompletableFuture<Void> future = new CompletableFuture<>();
-
-		if (apiKey == null || apiKey.isEmpty())
+		// Only first attempts are measured, a hedge that answers early would lower the p95 it waits for
+		MetricsHistogram latency = metrics.getPrimaryLatency(endpoint);
+		boolean canHedge = hedging && latency.getCount() >= MIN_HEDGE_SAMPLES;
+		long delay = canHedge ? Math.max(MIN_HEDGE_DELAY_MILLIS, RuneMessagesMetrics.millis(latency.percentile(0.95))) : 0;
+
+		long start = System.nanoTime();
+		CompletableFuture<T> primary = call.get();
+		primary.whenComplete((value, ex) ->
+		{
+			// A primary cancelled because its hedge won took at least this long
+			if (ex == null || primary.isCancelled())
+			{
+				metrics.recordPrimary(endpoint, System.nanoTime() - start);
+			}
+		});
+		if (!canHedge)
 		{
-			future.completeExceptionally(new IOException("Not authenticated"));
-			return future;
+			return primary;
 		}
 
-		String url = API_URL + "/messages/" + message.getWorldId() + "/" + message.getRegionId() + "/" + message.getId() + "/report";
+		CompletableFuture<T> result = new CompletableFuture<>();
+		List<CompletableFuture<T>> requests = new CopyOnWriteArrayList<>();
+		AtomicInteger outstanding = new AtomicInteger(1);
+		requests.add(primary);
+		primary.whenComplete((value, ex) -> settle(result, outstanding, value, ex));
 
-		JsonObject body = new JsonObject();
-		body.addProperty("reason", "Reported by " + reporterName);
-
-		Request request = new Request.Builder()
-			.url(url)
-			.header("X-API-Key", apiKey)
-			.post(RequestBody.create(JSON, gson.toJson(body)))
-			.build();
-
-		httpClient.newCall(request).enqueue(new Callback()
+		hedgeTimer.schedule(() ->
 		{
-			@Override
-			public void onFailure(Call call, IOException e)
+			// Reserving the hedge is atomic, so racing timers can not go past the cap together
+			if (result.isDone() || !metrics.tryRecordHedge(endpoint, MAX_HEDGE_RATE * latency.getCount()))
 			{
-				log.warn("Failed to report message: {}", e.getMessage());
-				future.completeExceptionally(e);
+				return;
 			}
 
-			@Override
-			public void onResponse(Call call, Response response) throws IOException
+			outstanding.incrementAndGet();
+			CompletableFuture<T> hedge = call.get();
+			requests.add(hedge);
+			hedge.whenComplete((value, ex) ->
 			{
-				try
-				{
-					if (response.isSuccessful())
-					{
-						message.setReported(true);
-						log.debug("Reported message {}", message.getId());
-						future.complete(null);
-					}
-					else
-					{
-						String responseBody = response.body().string();
-						try
-						{
-							JsonObject errorJson = gson.fromJson(responseBody, JsonObject.class);
-							String errorMsg = errorJson.has("error") ? errorJson.get("error").getAsString() : "Report failed";
-							future.completeExceptionally(new IOException(errorMsg));
-						}
-						catch (Exception e)
-						{
-							future.completeExceptionally(new IOException("HTTP " + response.code()));
-						}
-					}
-				}
-				finally
+				if (settle(result, outstanding, value, ex))
 				{
-					response.close();
+					metrics.recordHedgeWin(endpoint);
 				}
+			});
+			if (result.isDone())
+			{
+				hedge.cancel(false);
 			}
-		});
+		}, delay);
 
-		return future;
+		// Cancel the request that lost, it is a no-op for the one that finished
+		result.whenComplete((value, ex) -> requests.forEach(request -> request.cancel(false)));
+		return result;
 	}
 
-	private List<MessageData> parseMessageArray(String json)
+	/**
+	 * The first success completes the result. A failure only does once no other request is left.
+	 *
+	 * @return true if this outcome completed the result
+	 */
+	private static <T> boolean settle(CompletableFuture<T> result, AtomicInteger outstanding, T value, Throwable ex)
 	{
-		List<MessageData> messages = new ArrayList<>();
-
-		if (json == null || json.isEmpty() || json.equals("null"))
+		int left = outstanding.decrementAndGet();
+		if (ex == null)
 		{
-			return messages;
+			return result.complete(value);
 		}
+		return left == 0 && result.completeExceptionally(ex);
+	}
 
-		try
-		{
-			JsonArray array = gson.fromJson(json, JsonArray.class);
-			for (JsonElement element : array)
-			{
-				try
-				{
-					MessageData msg = gson.fromJson(element, MessageData.class);
-					if (msg != null)
-					{
-						messages.add(msg);
-					}
-				}
-				catch (Exception e)
-				{
-					log.warn("Failed to parse message: {}", e.getMessage());
-				}
-			}
-		}
-		catch (Exception e)
+	/**
+	 * Network failures, server errors and rate limiting may pass, anything else will not
+	 */
+	private static boolean isRetryable(Throwable cause)
+	{
+		if (cause instanceof ApiException)
 		{
-			log.warn("Failed to parse message array: {}", e.getMessage());
+			return ((ApiException) cause).isRetryable();
 		}
+		return cause instanceof IOException && !(cause instanceof CircuitOpenException);
+	}
 
-		return messages;
+	/**
+	 * Exponential backoff with jitter, so clients that failed together do not retry together
+	 */
+	private static long backoffMillis(int attempt)
+	{
+		long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << attempt);
+		return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+	}
+
+	/**
+	 * Schedules a hedge to be sent after a delay
+	 */
+	@FunctionalInterface
+	interface HedgeTimer
+	{
+		void schedule(Runnable task, long delayMillis);
+	}
+
+	private <T> CompletableFuture<T> timed(ApiEndpoint endpoint, Supplier<CompletableFuture<T>> call)
+	{
+		long start = System.nanoTime();
+		return call.get().whenComplete((result, ex) -> metrics.recordRequest(endpoint, System.nanoTime() - start, ex == null));
+	}
+
+	private static <T> CompletableFuture<T> notAuthenticated()
+	{
+		CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(new IOException("Not authenticated"));
+		return future;
 	}
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import lombok.Getter;
+import net.runelite.api.coords.LocalPoint;
+
+/**
+ * Immutable view of the plugin's scene state, published by the client thread for readers
+ * such as the overlay and the menu. Readers never see the live, single-writer maps; they
+ * walk a flat array by index instead. Built by {@link SceneSnapshotWriter}.
+ */
+public class SceneSnapshot
+{
+	public static final SceneSnapshot EMPTY = new SceneSnapshot(new MessageData[0], new LocalPoint[0], 0, 0, 0);
+
+	// Messages that currently have an active marker, and where they are in the scene, in
+	// [0, size). Never changed once published.
+	private final MessageData[] activeMessages;
+	private final LocalPoint[] localPoints;
+	private final int size;
+
+	// Number of loaded messages, including dormant ones beyond the activation radius
+	@Getter
+	private final int loadedCount;
+
+	// Grows with every published change, so readers can tell whether anything changed
+	@Getter
+	private final long version;
+
+	SceneSnapshot(MessageData[] activeMessages, LocalPoint[] localPoints, int size, int loadedCount, long version)
+	{
+		this.activeMessages = activeMessages;
+		this.localPoints = localPoints;
+		this.size = size;
+		this.loadedCount = loadedCount;
+		this.version = version;
+	}
+
+	/**
+	 * @return the number of messages with an active marker
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	public MessageData get(int index)
+	{
+		if (index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+		return activeMessages[index];
+	}
+
+	/**
+	 * @return where the message at index is in the scene, or null if it is outside it
+	 */
+	public LocalPoint getLocalPoint(int index)
+	{
+		if (index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+		return localPoints[index];
+	}
+}
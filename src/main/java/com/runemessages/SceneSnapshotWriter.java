@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import net.runelite.api.coords.LocalPoint;
+
+/**
+ * Client thread side of {@link SceneSnapshot}: the active messages in a flat array that is
+ * changed in place and published copy on write. The array is copied once by the first
+ * change after a publish, every other change is O(1), and publishing without changes hands
+ * out the previous snapshot again. Removal swaps the last message into the freed slot.
+ * Each message is kept with its local point, so readers need not project it themselves.
+ */
+public class SceneSnapshotWriter
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private MessageData[] messages = new MessageData[INITIAL_CAPACITY];
+	private LocalPoint[] localPoints = new LocalPoint[INITIAL_CAPACITY];
+	private int size;
+	private final Map<String, Integer> positions = new HashMap<>();
+	// The arrays are referenced by the published snapshot and must be copied before a change
+	private boolean shared;
+	private boolean dirty;
+	private SceneSnapshot published = SceneSnapshot.EMPTY;
+
+	/**
+	 * Add a message, or replace the one with the same id
+	 */
+	public void put(MessageData message, LocalPoint localPoint)
+	{
+		Integer position = positions.get(message.getId());
+		if (position != null)
+		{
+			if (messages[position] != message || localPoints[position] != localPoint)
+			{
+				writable(size);
+				messages[position] = message;
+				localPoints[position] = localPoint;
+			}
+			return;
+		}
+
+		writable(size + 1);
+		messages[size] = message;
+		localPoints[size] = localPoint;
+		positions.put(message.getId(), size++);
+	}
+
+	public void remove(String messageId)
+	{
+		Integer position = positions.remove(messageId);
+		if (position == null)
+		{
+			return;
+		}
+
+		writable(size);
+		int last = --size;
+		if (position != last)
+		{
+			messages[position] = messages[last];
+			localPoints[position] = localPoints[last];
+			positions.put(messages[position].getId(), position);
+		}
+		messages[last] = null;
+		localPoints[last] = null;
+	}
+
+	/**
+	 * Project every message again, after the scene moved
+	 */
+	public void reproject(Function<MessageData, LocalPoint> projection)
+	{
+		if (size > 0)
+		{
+			writable(size);
+			for (int i = 0; i < size; i++)
+			{
+				localPoints[i] = projection.apply(messages[i]);
+			}
+		}
+	}
+
+	public void clear()
+	{
+		if (size > 0)
+		{
+			messages = new MessageData[INITIAL_CAPACITY];
+			localPoints = new LocalPoint[INITIAL_CAPACITY];
+			size = 0;
+			positions.clear();
+			shared = false;
+			dirty = true;
+		}
+	}
+
+	/**
+	 * @return a snapshot of the current state, the previous one if nothing changed
+	 */
+	public SceneSnapshot publish(int loadedCount)
+	{
+		if (dirty || loadedCount != published.getLoadedCount())
+		{
+			published = new SceneSnapshot(messages, localPoints, size, loadedCount, published.getVersion() + 1);
+			shared = true;
+			dirty = false;
+		}
+		return published;
+	}
+
+	/**
+	 * Make the arrays safe to change, copying them first if a snapshot holds them, with room
+	 * for at least capacity entries
+	 */
+	private void writable(int capacity)
+	{
+		if (shared || capacity > messages.length)
+		{
+			int length = capacity > messages.length ? Math.max(capacity, messages.length * 2) : messages.length;
+			messages = Arrays.copyOf(messages, length);
+			localPoints = Arrays.copyOf(localPoints, length);
+			shared = false;
+		}
+		dirty = true;
+	}
+}
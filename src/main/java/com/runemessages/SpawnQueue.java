@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Pending marker spawns, the player's own first and then nearest to the player first.
+ * Only used on the client thread.
+ */
+public class SpawnQueue
+{
+	private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+	private long sequence;
+
+	/**
+	 * @param distance tile distance from the player when queued, lower spawns first
+	 * @param own the player's own message, which spawns before any other
+	 */
+	public void add(MessageData message, int distance, boolean own)
+	{
+		queue.add(new Entry(message, distance, own, sequence++));
+	}
+
+	public MessageData poll()
+	{
+		Entry entry = queue.poll();
+		return entry != null ? entry.message : null;
+	}
+
+	public boolean isEmpty()
+	{
+		return queue.isEmpty();
+	}
+
+	public int size()
+	{
+		return queue.size();
+	}
+
+	/**
+	 * Cancel every pending spawn in a region, e.g. when it is cleaned up before its spawns finished
+	 *
+	 * @return number of spawns cancelled
+	 */
+	public int cancelRegion(int worldId, int regionId)
+	{
+		return removeIf(m -> m.getWorldId() == worldId && m.getRegionId() == regionId);
+	}
+
+	public int removeIf(Predicate<MessageData> filter)
+	{
+		int before = queue.size();
+		queue.removeIf(entry -> filter.test(entry.message));
+		return before - queue.size();
+	}
+
+	public void clear()
+	{
+		queue.clear();
+	}
+
+	private static final class Entry implements Comparable<Entry>
+	{
+		private final MessageData message;
+		private final int distance;
+		private final boolean own;
+		private final long sequence;
+
+		private Entry(MessageData message, int distance, boolean own, long sequence)
+		{
+			this.message = message;
+			this.distance = distance;
+			this.own = own;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Entry other)
+		{
+			// Own messages claim their tiles before a sampled message nearby can
+			if (own != other.own)
+			{
+				return own ? -1 : 1;
+			}
+			// Ties keep queue order, so top-voted messages still go first
+			int cmp = Integer.compare(distance, other.distance);
+			return cmp != 0 ? cmp : Long.compare(sequence, other.sequence);
+		}
+	}
+}
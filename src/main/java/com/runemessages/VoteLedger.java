@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Votes the player cast that the server counts may not include yet. A vote is shown as soon
+ * as it is cast and dropped again if the request fails. It stops being added once a fetched
+ * count has grown past the count seen when it was cast, so a refresh during or after the
+ * request neither loses it nor counts it twice. Should another player's vote in the same
+ * direction land first, the player's vote is hidden until the next refresh shows it.
+ * <p>
+ * Counts are passed around packed into one long, see {@link #pack(int, int)}, so a reader
+ * never sees one count updated without the other. Only used on the client thread.
+ */
+public class VoteLedger
+{
+	private final Map<String, Vote> pending = new HashMap<>();
+
+	public static long pack(int thumbsUp, int thumbsDown)
+	{
+		return ((long) thumbsUp << 32) | (thumbsDown & 0xFFFFFFFFL);
+	}
+
+	public static int thumbsUp(long votes)
+	{
+		return (int) (votes >>> 32);
+	}
+
+	public static int thumbsDown(long votes)
+	{
+		return (int) votes;
+	}
+
+	public static int score(long votes)
+	{
+		return thumbsUp(votes) - thumbsDown(votes);
+	}
+
+	/**
+	 * Record a vote before it is sent
+	 *
+	 * @return false if a vote on this message is already pending
+	 */
+	public boolean cast(MessageData message, boolean thumbsUp)
+	{
+		long votes = message.getVotes();
+		Vote vote = new Vote(thumbsUp, thumbsUp ? thumbsUp(votes) : thumbsDown(votes), false);
+		return pending.putIfAbsent(message.getId(), vote) == null;
+	}
+
+	/**
+	 * The server accepted the vote, keep it until a fetched count includes it
+	 */
+	public void confirm(String messageId)
+	{
+		pending.computeIfPresent(messageId, (id, vote) -> new Vote(vote.thumbsUp, vote.base, true));
+	}
+
+	/**
+	 * The vote was not accepted, stop showing it
+	 */
+	public void cancel(String messageId)
+	{
+		pending.remove(messageId);
+	}
+
+	public boolean isPending(String messageId)
+	{
+		return pending.containsKey(messageId);
+	}
+
+	/**
+	 * @return the message's server counts plus the player's vote if they do not include it yet
+	 */
+	public long counts(MessageData message)
+	{
+		long votes = message.getVotes();
+		Vote vote = pending.isEmpty() ? null : pending.get(message.getId());
+		if (vote == null || vote.isIncludedIn(votes))
+		{
+			return votes;
+		}
+		return vote.thumbsUp ? pack(thumbsUp(votes) + 1, thumbsDown(votes)) : pack(thumbsUp(votes), thumbsDown(votes) + 1);
+	}
+
+	/**
+	 * Forget an accepted vote once fresh server counts of its message include it
+	 */
+	public void reconcile(MessageData message)
+	{
+		if (!pending.isEmpty())
+		{
+			pending.computeIfPresent(message.getId(),
+				(id, vote) -> vote.confirmed && vote.isIncludedIn(message.getVotes()) ? null : vote);
+		}
+	}
+
+	public int size()
+	{
+		return pending.size();
+	}
+
+	public void clear()
+	{
+		pending.clear();
+	}
+
+	private static final class Vote
+	{
+		private final boolean thumbsUp;
+		// Count in the vote's direction when it was cast
+		private final int base;
+		private final boolean confirmed;
+
+		private Vote(boolean thumbsUp, int base, boolean confirmed)
+		{
+			this.thumbsUp = thumbsUp;
+			this.base = base;
+			this.confirmed = confirmed;
+		}
+
+		private boolean isIncludedIn(long votes)
+		{
+			return (thumbsUp ? VoteLedger.thumbsUp(votes) : thumbsDown(votes)) > base;
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * Every message of the current world, indexed by region, so region loads can be served
+ * without a request. Filled from a {@link WorldSnapshot} after login and kept up to date
+ * with incremental ones. Only used on the client thread.
+ */
+public class WorldMessageIndex
+{
+	// Two hash map entries and a list slot per message
+	private static final int ENTRY_OVERHEAD = 80;
+
+	@Getter
+	private int worldId = -1;
+
+	// Version of the last applied snapshot, 0 before the first
+	@Getter
+	private long version;
+
+	@Getter
+	private boolean ready;
+
+	// Dropped to save memory, not fetched again until the world changes
+	@Getter
+	private boolean dropped;
+
+	private final Map<Integer, List<MessageData>> regions = new HashMap<>();
+	private final Map<String, MessageData> messages = new HashMap<>();
+	private long estimatedBytes;
+
+	/**
+	 * Forget everything and start over for another world
+	 */
+	public void reset(int worldId)
+	{
+		clearMessages();
+		this.worldId = worldId;
+		version = 0;
+		ready = false;
+		dropped = false;
+	}
+
+	/**
+	 * Forget everything without fetching it again for this world
+	 *
+	 * @return approximate bytes freed
+	 */
+	public long drop()
+	{
+		long freed = estimateBytes();
+		clearMessages();
+		version = 0;
+		ready = false;
+		dropped = true;
+		return freed;
+	}
+
+	public boolean isReady(int worldId)
+	{
+		return ready && this.worldId == worldId;
+	}
+
+	/**
+	 * @return the regions whose messages were added, changed or deleted
+	 */
+	public Set<Integer> apply(WorldSnapshot snapshot)
+	{
+		Set<Integer> changed = new HashSet<>();
+		if (snapshot.isFull())
+		{
+			changed.addAll(regions.keySet());
+			clearMessages();
+		}
+		for (String id : snapshot.getDeleted())
+		{
+			MessageData previous = messages.get(id);
+			if (previous != null)
+			{
+				changed.add(previous.getRegionId());
+				remove(id);
+			}
+		}
+		for (MessageData message : snapshot.getMessages())
+		{
+			MessageData previous = messages.get(message.getId());
+			if (previous != null)
+			{
+				changed.add(previous.getRegionId());
+			}
+			changed.add(message.getRegionId());
+			put(message);
+		}
+		version = snapshot.getVersion();
+		ready = true;
+		return changed;
+	}
+
+	/**
+	 * Add or replace a single message, e.g. one just placed by the player
+	 */
+	public void put(MessageData message)
+	{
+		if (message.getWorldId() != worldId)
+		{
+			return;
+		}
+
+		remove(message.getId());
+		messages.put(message.getId(), message);
+		regions.computeIfAbsent(message.getRegionId(), k -> new ArrayList<>()).add(message);
+		estimatedBytes += MemoryBudget.estimate(message);
+	}
+
+	public void remove(String messageId)
+	{
+		MessageData previous = messages.remove(messageId);
+		if (previous == null)
+		{
+			return;
+		}
+
+		List<MessageData> region = regions.get(previous.getRegionId());
+		region.remove(previous);
+		if (region.isEmpty())
+		{
+			regions.remove(previous.getRegionId());
+		}
+		estimatedBytes -= MemoryBudget.estimate(previous);
+	}
+
+	/**
+	 * @return a new list of the region's messages, empty if it has none
+	 */
+	public List<MessageData> getRegionMessages(int regionId)
+	{
+		List<MessageData> region = regions.get(regionId);
+		return region != null ? new ArrayList<>(region) : Collections.emptyList();
+	}
+
+	public int size()
+	{
+		return messages.size();
+	}
+
+	/**
+	 * @return approximate heap used by the indexed messages, in bytes
+	 */
+	public long estimateBytes()
+	{
+		return estimatedBytes + (long) messages.size() * ENTRY_OVERHEAD;
+	}
+
+	private void clearMessages()
+	{
+		regions.clear();
+		messages.clear();
+		estimatedBytes = 0;
+	}
+}
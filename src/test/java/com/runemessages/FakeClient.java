@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.Model;
+import net.runelite.api.Player;
+import net.runelite.api.RuneLiteObject;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Minimal stand-in for the game client. Models a logged-in player in a 104x104 tile
+ * scene that is rebuilt around them when they get close to its edge, like the real
+ * client does. Any API the plugin does not need answers with a default value.
+ */
+public class FakeClient
+{
+	private static final int SCENE_SIZE = 104;
+	// Distance to the scene edge at which the scene is rebuilt around the player
+	private static final int SCENE_MARGIN = 16;
+
+	private final int world;
+	private final Client client;
+	private final WorldView worldView;
+	private final Player player;
+
+	private WorldPoint location;
+	private int baseX;
+	private int baseY;
+	private int[] mapRegions = new int[0];
+	private int tickCount;
+	private int sceneLoads;
+
+	public FakeClient(int world, WorldPoint start)
+	{
+		this.world = world;
+		this.worldView = proxy(WorldView.class, (p, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getBaseX":
+					return baseX;
+				case "getBaseY":
+					return baseY;
+				case "getPlane":
+					return location.getPlane();
+				case "getSizeX":
+				case "getSizeY":
+					return SCENE_SIZE;
+				case "getId":
+					return -1;
+				case "isTopLevel":
+					return true;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		});
+		this.player = proxy(Player.class, (p, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getName":
+					return "SimPlayer";
+				case "getWorldLocation":
+					return location;
+				case "getLocalLocation":
+					return LocalPoint.fromWorld(worldView, location);
+				case "getWorldView":
+					return worldView;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		});
+		this.client = proxy(Client.class, (p, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getGameState":
+					return GameState.LOGGED_IN;
+				case "getLocalPlayer":
+					return player;
+				case "getWorld":
+					return world;
+				case "getMapRegions":
+					return mapRegions;
+				case "getTopLevelWorldView":
+				case "getWorldView":
+					return worldView;
+				case "getBaseX":
+					return baseX;
+				case "getBaseY":
+					return baseY;
+				case "getPlane":
+					return location.getPlane();
+				case "getTickCount":
+					return tickCount;
+				case "isClientThread":
+					return true;
+				case "getMenuEntries":
+					return new MenuEntry[0];
+				case "createRuneLiteObject":
+					return createRuneLiteObject();
+				case "loadModel":
+					return proxy(Model.class, (m, modelMethod, modelArgs) -> defaultValue(modelMethod.getReturnType()));
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		});
+		moveTo(start);
+	}
+
+	public Client getClient()
+	{
+		return client;
+	}
+
+	public int getWorld()
+	{
+		return world;
+	}
+
+	public WorldPoint getLocation()
+	{
+		return location;
+	}
+
+	public int getSceneLoads()
+	{
+		return sceneLoads;
+	}
+
+	/**
+	 * Advance to the next game tick with the player at the given location
+	 */
+	public void tick(WorldPoint next)
+	{
+		tickCount++;
+		moveTo(next);
+	}
+
+	private void moveTo(WorldPoint next)
+	{
+		location = next;
+		int sceneX = next.getX() - baseX;
+		int sceneY = next.getY() - baseY;
+		if (mapRegions.length == 0 || sceneX < SCENE_MARGIN || sceneY < SCENE_MARGIN
+			|| sceneX >= SCENE_SIZE - SCENE_MARGIN || sceneY >= SCENE_SIZE - SCENE_MARGIN)
+		{
+			loadScene();
+		}
+	}
+
+	private void loadScene()
+	{
+		// The scene is 13 chunks wide, with the player's chunk in the middle
+		baseX = ((location.getX() >> 3) - 6) << 3;
+		baseY = ((location.getY() >> 3) - 6) << 3;
+
+		int minRegionX = baseX >> 6;
+		int maxRegionX = (baseX + SCENE_SIZE - 1) >> 6;
+		int minRegionY = baseY >> 6;
+		int maxRegionY = (baseY + SCENE_SIZE - 1) >> 6;
+		mapRegions = new int[(maxRegionX - minRegionX + 1) * (maxRegionY - minRegionY + 1)];
+		int i = 0;
+		for (int rx = minRegionX; rx <= maxRegionX; rx++)
+		{
+			for (int ry = minRegionY; ry <= maxRegionY; ry++)
+			{
+				mapRegions[i++] = (rx << 8) | ry;
+			}
+		}
+		sceneLoads++;
+	}
+
+	private RuneLiteObject createRuneLiteObject()
+	{
+		if (RuneLiteObject.class.isInterface())
+		{
+			boolean[] active = new boolean[1];
+			return proxy(RuneLiteObject.class, (p, method, args) ->
+			{
+				switch (method.getName())
+				{
+					case "setActive":
+						active[0] = (Boolean) args[0];
+						return null;
+					case "isActive":
+						return active[0];
+					default:
+						return defaultValue(method.getReturnType());
+				}
+			});
+		}
+
+		// Older APIs expose a concrete class, which only needs a client to call back into
+		try
+		{
+			for (Constructor<?> constructor : RuneLiteObject.class.getConstructors())
+			{
+				Class<?>[] params = constructor.getParameterTypes();
+				if (params.length == 0)
+				{
+					return (RuneLiteObject) constructor.newInstance();
+				}
+				if (params.length == 1 && params[0] == Client.class)
+				{
+					return (RuneLiteObject) constructor.newInstance(client);
+				}
+			}
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Unable to create a RuneLiteObject", e);
+		}
+		throw new IllegalStateException("No usable RuneLiteObject constructor");
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<T> type, InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "equals":
+					return p == args[0];
+				case "hashCode":
+					return System.identityHashCode(p);
+				case "toString":
+					return "Fake" + type.getSimpleName();
+				default:
+					return handler.invoke(p, method, args);
+			}
+		});
+	}
+
+	static Object defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive() || type == void.class)
+		{
+			return null;
+		}
+		return Array.get(Array.newInstance(type, 1), 0);
+	}
+}
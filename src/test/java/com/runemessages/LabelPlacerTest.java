@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class LabelPlacerTest
+{
+	@Test
+	public void placesBestScoreThenNearestFirst()
+	{
+		Random random = new Random(7);
+		LabelPlacer<Integer> placer = new LabelPlacer<>();
+		for (int frame = 0; frame < 50; frame++)
+		{
+			placer.reset(10_000, 100);
+			int count = 1 + random.nextInt(300);
+			List<int[]> candidates = new ArrayList<>();
+			for (int i = 0; i < count; i++)
+			{
+				// Spaced apart so every label fits, only the order is tested
+				int score = random.nextInt(21) - 10;
+				int distance = random.nextInt(15);
+				candidates.add(new int[]{i, score, distance});
+				placer.add(i, i * 30, 0, 20, 10, score, distance);
+			}
+
+			candidates.sort(Comparator.<int[]>comparingInt(c -> -c[1]).thenComparingInt(c -> c[2]).thenComparingInt(c -> c[0]));
+			int maxLabels = random.nextInt(count + 1);
+			assertEquals(maxLabels, placer.place(maxLabels));
+			for (int i = 0; i < maxLabels; i++)
+			{
+				assertEquals(candidates.get(i)[0], (int) placer.getPayload(i));
+			}
+		}
+	}
+
+	@Test
+	public void offCanvasLabelsDoNotUseTheLimit()
+	{
+		LabelPlacer<String> placer = new LabelPlacer<>();
+		placer.reset(800, 600);
+		placer.add("left", -100, 10, 50, 20, 100, 0);
+		placer.add("below", 10, 600, 50, 20, 100, 0);
+		placer.add("visible", 10, 10, 50, 20, 0, 5);
+		placer.add("partly", 780, 590, 50, 20, 0, 6);
+
+		assertEquals(2, placer.place(2));
+		assertEquals("visible", placer.getPayload(0));
+		assertEquals("partly", placer.getPayload(1));
+	}
+
+	@Test
+	public void overlappingLabelsAreSkipped()
+	{
+		LabelPlacer<String> placer = new LabelPlacer<>();
+		placer.reset(800, 600);
+		placer.add("low", 10, 10, 100, 20, Integer.MIN_VALUE, 0);
+		placer.add("high", 50, 15, 100, 20, Integer.MAX_VALUE, 0);
+		placer.add("apart", 300, 300, 100, 20, 0, 0);
+
+		assertEquals(2, placer.place(10));
+		assertEquals("high", placer.getPayload(0));
+		assertEquals("apart", placer.getPayload(1));
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import net.runelite.api.coords.WorldPoint;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Command-line load generator for capacity planning. Simulates concurrent virtual players
+ * moving through synthetic or recorded paths, each fetching regions as they enter its
+ * scene and occasionally voting, through {@link RuneMessagesService}. Reports throughput,
+ * latency percentiles and error rates per endpoint. Run with {@code ./gradlew loadtest}.
+ * <p>
+ * Options, all as {@code --name value}: players, duration-s, tick-ms (real time per game
+ * tick, lower to compress time), scenario (IDLE, WALK, RUN, TELEPORT), path-file (one
+ * {@code x,y,plane} line per tick, replayed by every player from a different offset),
+ * vote-chance (per player per tick), seed, world, url and api-key. Without a url the
+ * local stand-in is started, with latency-ms and messages-per-region.
+ */
+public class LoadGenerator
+{
+	private static final double GAME_TICK_SECONDS = 0.6;
+
+	private final Map<String, String> options;
+	private final RuneMessagesMetrics metrics = new RuneMessagesMetrics();
+	private final AtomicLong gameTicks = new AtomicLong();
+
+	private LoadGenerator(Map<String, String> options)
+	{
+		this.options = options;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		new LoadGenerator(SimulationHarness.parseArgs(args)).run();
+		System.exit(0);
+	}
+
+	private void run() throws Exception
+	{
+		int players = intOption("players", 50);
+		int durationSeconds = intOption("duration-s", 60);
+		int tickMillis = intOption("tick-ms", 600);
+		int world = intOption("world", 301);
+		long seed = intOption("seed", 1);
+		double voteChance = Double.parseDouble(options.getOrDefault("vote-chance", "0.002"));
+		PlayerPathGenerator.Scenario scenario =
+			PlayerPathGenerator.Scenario.valueOf(options.getOrDefault("scenario", "WALK").toUpperCase());
+		List<WorldPoint> recorded = options.containsKey("path-file") ? readPath(options.get("path-file")) : null;
+
+		LocalMessageApi localApi = null;
+		String url = options.get("url");
+		String apiKey = options.get("api-key");
+		if (url == null)
+		{
+			localApi = new LocalMessageApi(seed, intOption("messages-per-region", 40), intOption("latency-ms", 20));
+			localApi.start();
+			url = localApi.getUrl();
+			apiKey = "sim-key";
+		}
+		else if (apiKey == null)
+		{
+			throw new IllegalArgumentException("--api-key is required with --url");
+		}
+
+		// Every virtual player is a separate client, so lift OkHttp's per-host request cap
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(Math.max(64, players * 4));
+		dispatcher.setMaxRequestsPerHost(Math.max(64, players * 4));
+		OkHttpClient httpClient = new OkHttpClient.Builder().dispatcher(dispatcher).build();
+		Gson gson = new Gson();
+
+		System.out.printf("Running %d players for %ds (%dms per tick), scenario %s, against %s%n",
+			players, durationSeconds, tickMillis, recorded != null ? "recorded" : scenario, url);
+
+		ScheduledExecutorService ticker = Executors.newScheduledThreadPool(Math.max(1, Math.min(players, 8)));
+		Random stagger = new Random(seed);
+		for (int i = 0; i < players; i++)
+		{
+			RuneMessagesService service = new RuneMessagesService(httpClient, gson, metrics);
+			service.setBackend(new HttpMessageBackend(httpClient, gson, metrics, url));
+			service.setApiKey(apiKey);
+
+			Supplier<WorldPoint> path;
+			if (recorded != null)
+			{
+				int offset = recorded.size() * i / players;
+				int[] position = {offset};
+				path = () -> recorded.get(position[0]++ % recorded.size());
+			}
+			else
+			{
+				path = new PlayerPathGenerator(scenario, seed + i)::next;
+			}
+
+			VirtualPlayer player = new VirtualPlayer(service, world, path, voteChance, new Random(seed * 31 + i));
+			ticker.scheduleAtFixedRate(player::tick, stagger.nextInt(tickMillis), tickMillis, TimeUnit.MILLISECONDS);
+		}
+
+		long started = System.nanoTime();
+		Thread.sleep(durationSeconds * 1000L);
+		ticker.shutdownNow();
+		// Let in-flight requests finish so they are counted
+		Thread.sleep(Math.min(5000, tickMillis * 5L));
+		long elapsed = System.nanoTime() - started;
+
+		if (localApi != null)
+		{
+			localApi.stop();
+		}
+		dispatcher.executorService().shutdown();
+
+		report(players, elapsed);
+	}
+
+	private void report(int players, long elapsedNanos)
+	{
+		double seconds = elapsedNanos / 1e9;
+		double gameMinutes = gameTicks.get() * GAME_TICK_SECONDS / 60 / players;
+		long total = 0;
+		long errors = 0;
+		for (ApiEndpoint endpoint : ApiEndpoint.values())
+		{
+			total += metrics.getLatency(endpoint).getCount();
+			errors += metrics.getErrors(endpoint);
+		}
+
+		System.out.printf("%n%d requests in %.1fs: %.1f req/s, %.1f req per player per game minute, %.2f%% errors%n",
+			total, seconds, total / seconds, gameMinutes > 0 ? total / (double) players / gameMinutes : 0,
+			total > 0 ? errors * 100.0 / total : 0);
+		System.out.printf("%-10s %8s %8s %8s %8s %8s %8s%n", "endpoint", "count", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+		for (ApiEndpoint endpoint : ApiEndpoint.values())
+		{
+			MetricsHistogram latency = metrics.getLatency(endpoint);
+			if (latency.getCount() == 0)
+			{
+				continue;
+			}
+			System.out.printf("%-10s %8d %8d %8d %8d %8d %8d%n", endpoint, latency.getCount(), metrics.getErrors(endpoint),
+				RuneMessagesMetrics.millis(latency.percentile(0.5)),
+				RuneMessagesMetrics.millis(latency.percentile(0.95)),
+				RuneMessagesMetrics.millis(latency.percentile(0.99)),
+				RuneMessagesMetrics.millis(latency.getMax()));
+		}
+	}
+
+	private int intOption(String name, int defaultValue)
+	{
+		String value = options.get(name);
+		return value != null ? Integer.parseInt(value) : defaultValue;
+	}
+
+	private static List<WorldPoint> readPath(String file) throws IOException
+	{
+		List<WorldPoint> path = new ArrayList<>();
+		for (String line : Files.readAllLines(Paths.get(file)))
+		{
+			String[] parts = line.trim().split(",");
+			if (parts.length >= 2 && !line.startsWith("#"))
+			{
+				path.add(new WorldPoint(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+					parts.length > 2 ? Integer.parseInt(parts[2].trim()) : 0));
+			}
+		}
+		if (path.isEmpty())
+		{
+			throw new IllegalArgumentException("No points in " + file);
+		}
+		return path;
+	}
+
+	/**
+	 * One client: fetches regions as they enter its scene, like the plugin's onGameTick
+	 */
+	private final class VirtualPlayer
+	{
+		private final RuneMessagesService service;
+		private final Supplier<WorldPoint> path;
+		private final double voteChance;
+		private final Random random;
+		private final FakeClient scene;
+		private final Set<Integer> loadedRegions = new HashSet<>();
+		private volatile List<MessageData> lastFetched = new ArrayList<>();
+
+		private VirtualPlayer(RuneMessagesService service, int world, Supplier<WorldPoint> path, double voteChance, Random random)
+		{
+			this.service = service;
+			this.path = path;
+			this.voteChance = voteChance;
+			this.random = random;
+			this.scene = new FakeClient(world, path.get());
+		}
+
+		private void tick()
+		{
+			gameTicks.incrementAndGet();
+			scene.tick(path.get());
+
+			Set<Integer> current = new HashSet<>();
+			for (int region : scene.getClient().getMapRegions())
+			{
+				current.add(region);
+				if (loadedRegions.add(region))
+				{
+					service.getMessagesForRegion(scene.getWorld(), region)
+						.thenAccept(messages -> lastFetched = messages);
+				}
+			}
+			loadedRegions.retainAll(current);
+
+			List<MessageData> candidates = lastFetched;
+			if (!candidates.isEmpty() && random.nextDouble() < voteChance)
+			{
+				MessageData target = candidates.get(random.nextInt(candidates.size()));
+				service.rateMessage(target, random.nextBoolean());
+			}
+		}
+	}
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the RuneMessages API. Serves deterministic synthetic messages
+ * for every region, accepts writes without storing them, and counts requests.
+ */
+public class LocalMessageApi
+{
+	private static final String[] WORDS = {
+		"try", "jumping", "here", "treasure", "ahead", "beware", "dragon", "praise", "the", "sun",
+		"no", "loot", "for", "you", "nice", "view", "fishing", "spot", "gl", "hf",
+	};
+
+	// Regions covered by the world download, roughly the mainland
+	private static final int WORLD_MIN_REGION_X = 36;
+	private static final int WORLD_MAX_REGION_X = 63;
+	private static final int WORLD_MIN_REGION_Y = 38;
+	private static final int WORLD_MAX_REGION_Y = 63;
+
+	private final Gson gson = new Gson();
+	private final long seed;
+	private final int messagesPerRegion;
+	private final int latencyMillis;
+
+	private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+	// Latest request time per region key, in System.nanoTime()
+	private final Map<Long, Long> lastRegionRequest = new ConcurrentHashMap<>();
+
+	// Share of region requests answered after an extra delay, to exercise tail latency
+	private volatile double slowRate;
+	private volatile int slowMillis;
+
+	// Region requests still to be held back, and the ones waiting for release
+	private final AtomicInteger toHold = new AtomicInteger();
+	private final AtomicInteger held = new AtomicInteger();
+	private volatile CountDownLatch release = new CountDownLatch(0);
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * @param messagesPerRegion upper bound for the synthetic messages in a region
+	 * @param latencyMillis artificial delay before every response
+	 */
+	public LocalMessageApi(long seed, int messagesPerRegion, int latencyMillis)
+	{
+		this.seed = seed;
+		this.messagesPerRegion = messagesPerRegion;
+		this.latencyMillis = latencyMillis;
+	}
+
+	public void start() throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		executor = Executors.newFixedThreadPool(8);
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	public void stop()
+	{
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Delay a random share of region responses by an extra amount
+	 */
+	public void injectLatency(double rate, int millis)
+	{
+		this.slowRate = rate;
+		this.slowMillis = millis;
+	}
+
+	/**
+	 * Keep the next region requests waiting until {@link #releaseRegionRequests()}, so tests
+	 * decide which of several requests answers first
+	 */
+	public void holdRegionRequests(int count)
+	{
+		release = new CountDownLatch(1);
+		toHold.set(count);
+	}
+
+	public void releaseRegionRequests()
+	{
+		toHold.set(0);
+		release.countDown();
+	}
+
+	/**
+	 * @return region requests that arrived and are being held back
+	 */
+	public int getHeldRegionRequests()
+	{
+		return held.get();
+	}
+
+	public String getUrl()
+	{
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * @return request counts per endpoint, sorted by name
+	 */
+	public Map<String, Long> getRequestCounts()
+	{
+		Map<String, Long> counts = new TreeMap<>();
+		requestCounts.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+		return counts;
+	}
+
+	public long getTotalRequests()
+	{
+		long total = 0;
+		for (LongAdder count : requestCounts.values())
+		{
+			total += count.sum();
+		}
+		return total;
+	}
+
+	/**
+	 * @return when the region was last requested, in System.nanoTime(), or -1
+	 */
+	public long getLastRequestNanos(int worldId, int regionId)
+	{
+		Long nanos = lastRegionRequest.get(RegionCache.key(worldId, regionId));
+		return nanos != null ? nanos : -1;
+	}
+
+	/**
+	 * Deterministic messages for a region, the same for every request
+	 */
+	public List<MessageData> regionMessages(int worldId, int regionId)
+	{
+		Random random = new Random(seed ^ RegionCache.key(worldId, regionId));
+		int count = random.nextInt(messagesPerRegion + 1);
+		int baseX = (regionId >> 8) << 6;
+		int baseY = (regionId & 0xFF) << 6;
+
+		List<MessageData> messages = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			StringBuilder text = new StringBuilder();
+			int words = 2 + random.nextInt(6);
+			for (int w = 0; w < words; w++)
+			{
+				text.append(w > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+			}
+
+			messages.add(MessageData.builder()
+				.id("sim-" + worldId + "-" + regionId + "-" + i)
+				.author("Player" + random.nextInt(500))
+				.message(text.toString())
+				.x(baseX + random.nextInt(64))
+				.y(baseY + random.nextInt(64))
+				.plane(0)
+				.worldId(worldId)
+				.regionId(regionId)
+				.timestamp(System.currentTimeMillis())
+				.thumbsUp(random.nextInt(20))
+				.thumbsDown(random.nextInt(5))
+				.build());
+		}
+		return messages;
+	}
+
+	/**
+	 * The messages of every region covered by the world download
+	 */
+	public List<MessageData> worldMessages(int worldId)
+	{
+		List<MessageData> messages = new ArrayList<>();
+		for (int x = WORLD_MIN_REGION_X; x <= WORLD_MAX_REGION_X; x++)
+		{
+			for (int y = WORLD_MIN_REGION_Y; y <= WORLD_MAX_REGION_Y; y++)
+			{
+				messages.addAll(regionMessages(worldId, (x << 8) | y));
+			}
+		}
+		return messages;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		try (InputStream in = exchange.getRequestBody())
+		{
+			in.readAllBytes();
+		}
+
+		URI uri = exchange.getRequestURI();
+		String path = uri.getPath();
+		String method = exchange.getRequestMethod();
+
+		int delay = latencyMillis;
+		if (path.equals("/messages") && method.equals("GET"))
+		{
+			if (ThreadLocalRandom.current().nextDouble() < slowRate)
+			{
+				delay += slowMillis;
+			}
+			if (toHold.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+			{
+				held.incrementAndGet();
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+				finally
+				{
+					held.decrementAndGet();
+				}
+			}
+		}
+		if (delay > 0)
+		{
+			try
+			{
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		String endpoint;
+		String response;
+
+		if (path.equals("/register"))
+		{
+			endpoint = "register";
+			JsonObject json = new JsonObject();
+			json.addProperty("apiKey", "sim-key");
+			response = gson.toJson(json);
+		}
+		else if (path.equals("/verify"))
+		{
+			endpoint = "verify";
+			response = "{}";
+		}
+		else if (path.equals("/messages") && method.equals("GET"))
+		{
+			endpoint = "region";
+			Map<String, String> query = parseQuery(uri.getRawQuery());
+			int worldId = Integer.parseInt(query.getOrDefault("worldId", "0"));
+			int regionId = Integer.parseInt(query.getOrDefault("regionId", "0"));
+			lastRegionRequest.put(RegionCache.key(worldId, regionId), System.nanoTime());
+			response = gson.toJson(regionMessages(worldId, regionId));
+		}
+		else if (path.equals("/messages/mine"))
+		{
+			endpoint = "author";
+			response = "[]";
+		}
+		else if (path.startsWith("/messages/world/"))
+		{
+			// Messages never change, so every update after the first download is empty
+			endpoint = "world";
+			int worldId = Integer.parseInt(path.substring("/messages/world/".length()));
+			long since = Long.parseLong(parseQuery(uri.getRawQuery()).getOrDefault("since", "0"));
+			JsonObject json = new JsonObject();
+			json.addProperty("version", 1);
+			json.addProperty("full", since == 0);
+			json.add("messages", gson.toJsonTree(since == 0 ? worldMessages(worldId) : new ArrayList<>()));
+			json.add("deleted", new JsonArray());
+			response = gson.toJson(json);
+		}
+		else if (path.equals("/messages") && method.equals("POST"))
+		{
+			endpoint = "save";
+			response = "{}";
+		}
+		else if (path.endsWith("/vote"))
+		{
+			endpoint = "vote";
+			response = "{}";
+		}
+		else if (path.endsWith("/report"))
+		{
+			endpoint = "report";
+			response = "{}";
+		}
+		else if (method.equals("DELETE"))
+		{
+			endpoint = "delete";
+			response = "{}";
+		}
+		else
+		{
+			endpoint = "unknown";
+			response = null;
+		}
+
+		requestCounts.computeIfAbsent(endpoint, e -> new LongAdder()).increment();
+
+		byte[] body = response != null ? response.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(response != null ? 200 : 404, body.length > 0 ? body.length : -1);
+		try (OutputStream out = exchange.getResponseBody())
+		{
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String query)
+	{
+		Map<String, String> params = new TreeMap<>();
+		if (query == null)
+		{
+			return params;
+		}
+		for (String pair : query.split("&"))
+		{
+			int eq = pair.indexOf('=');
+			if (eq > 0)
+			{
+				params.put(pair.substring(0, eq), pair.substring(eq + 1));
+			}
+		}
+		return params;
+	}
+}
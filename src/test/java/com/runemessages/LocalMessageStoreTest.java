@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalMessageStoreTest
+{
+	private File dir;
+	private File file;
+
+	@Before
+	public void before() throws IOException
+	{
+		dir = Files.createTempDirectory("runemessages-test").toFile();
+		file = new File(dir, "local_messages.dat");
+	}
+
+	@After
+	public void after()
+	{
+		file.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void removedMessagesStayRemovedAfterCompactionAndReopen()
+	{
+		LocalMessageStore store = new LocalMessageStore(file);
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+		{
+			MessageData message = message(i % 4);
+			assertTrue(store.add(message));
+			ids.add(message.getId());
+		}
+
+		// Removing every other message crosses the compaction threshold
+		for (int i = 0; i < ids.size(); i += 2)
+		{
+			assertTrue(store.remove(ids.get(i)));
+		}
+		assertFalse(store.remove(ids.get(0)));
+		assertFalse(store.remove("not-local"));
+		assertEquals(50, store.size());
+		assertRegionsHold(store, ids);
+
+		store.close();
+		store = new LocalMessageStore(file);
+		assertEquals(50, store.size());
+		assertRegionsHold(store, ids);
+
+		// New ids must not reuse those of deleted records
+		MessageData message = message(0);
+		assertTrue(store.add(message));
+		assertFalse(ids.contains(message.getId()));
+		store.close();
+	}
+
+	@Test
+	public void tombstonesSurviveReopen()
+	{
+		LocalMessageStore store = new LocalMessageStore(file);
+		MessageData kept = message(1);
+		MessageData removed = message(1);
+		store.add(kept);
+		store.add(removed);
+		assertTrue(store.remove(removed.getId()));
+		store.close();
+
+		store = new LocalMessageStore(file);
+		assertEquals(1, store.size());
+		List<MessageData> messages = store.getRegionMessages(301, 1);
+		assertEquals(1, messages.size());
+		assertEquals(kept.getId(), messages.get(0).getId());
+		store.close();
+	}
+
+	@Test
+	public void headerOnlyFileGrows() throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			// A valid header without room for any record
+			raf.writeInt(0x524D4C53);
+			raf.writeInt(1);
+			raf.writeInt(0);
+			raf.writeInt(0);
+		}
+
+		LocalMessageStore store = new LocalMessageStore(file);
+		assertTrue(store.add(message(0)));
+		assertEquals(1, store.size());
+		store.close();
+	}
+
+	private static void assertRegionsHold(LocalMessageStore store, List<String> ids)
+	{
+		for (int region = 0; region < 4; region++)
+		{
+			List<MessageData> messages = store.getRegionMessages(301, region);
+			// Only the odd messages were kept, and they are all in the odd regions
+			assertEquals(region % 2 == 1 ? 25 : 0, messages.size());
+			for (MessageData message : messages)
+			{
+				assertEquals(1, ids.indexOf(message.getId()) % 2);
+			}
+		}
+	}
+
+	private static MessageData message(int regionId)
+	{
+		return MessageData.builder()
+			.author("Tester")
+			.message("Hello")
+			.worldId(301)
+			.regionId(regionId)
+			.build();
+	}
+}
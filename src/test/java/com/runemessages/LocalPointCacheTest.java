@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import net.runelite.api.WorldView;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LocalPointCacheTest
+{
+	private int baseX = 3200;
+
+	private final WorldView worldView = FakeClient.proxy(WorldView.class, (p, method, args) ->
+	{
+		switch (method.getName())
+		{
+			case "getBaseX":
+				return baseX;
+			case "getBaseY":
+				return 3200;
+			case "getPlane":
+			case "getId":
+				return 0;
+			default:
+				return null;
+		}
+	});
+
+	private final MessageData message = MessageData.builder().id("a").x(3210).y(3210).build();
+
+	@Test
+	public void updateReportsChangesNoticedByGet()
+	{
+		LocalPointCache cache = new LocalPointCache();
+		assertTrue(cache.update(worldView));
+		assertFalse(cache.update(worldView));
+
+		// A lookup between ticks sees the new base first, the next update still has to reproject
+		baseX += 8;
+		cache.get(worldView, message);
+		assertTrue(cache.update(worldView));
+		assertFalse(cache.update(worldView));
+	}
+
+	@Test
+	public void clearReportsAChange()
+	{
+		LocalPointCache cache = new LocalPointCache();
+		cache.update(worldView);
+		cache.clear();
+		assertTrue(cache.update(worldView));
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LongObjectMapTest
+{
+	@Test
+	public void removeShiftsBackWrappedClusters()
+	{
+		LongObjectMap<String> map = new LongObjectMap<>();
+		int mask = map.capacity() - 1;
+
+		// Keys homed in the last slots overflow into the first ones, mixed with keys homed there
+		List<Long> keys = new ArrayList<>();
+		keys.addAll(keysHomedAt(mask, mask, 3));
+		keys.addAll(keysHomedAt(mask, 0, 2));
+		keys.addAll(keysHomedAt(mask, mask - 1, 2));
+		assertTrue(keys.size() < map.capacity() * 0.6);
+
+		// Remove in every rotation of the insertion order, so each position of the cluster is a hole once
+		for (int start = 0; start < keys.size(); start++)
+		{
+			map.clear();
+			for (long key : keys)
+			{
+				map.put(key, String.valueOf(key));
+			}
+			assertEquals(mask + 1, map.capacity());
+
+			List<Long> remaining = new ArrayList<>(keys);
+			for (int i = 0; i < keys.size(); i++)
+			{
+				long key = keys.get((start + i) % keys.size());
+				assertEquals(String.valueOf(key), map.remove(key));
+				remaining.remove(key);
+				assertNull(map.get(key));
+				for (long other : remaining)
+				{
+					assertEquals(String.valueOf(other), map.get(other));
+				}
+				assertEquals(remaining.size(), map.size());
+			}
+		}
+	}
+
+	@Test
+	public void matchesHashMapUnderRandomPutsAndRemoves()
+	{
+		Random random = new Random(42);
+		LongObjectMap<Integer> map = new LongObjectMap<>();
+		Map<Long, Integer> expected = new HashMap<>();
+
+		for (int step = 0; step < 50_000; step++)
+		{
+			// A small key space keeps probe chains long and removals frequent
+			long key = RegionCache.key(random.nextInt(4), random.nextInt(300));
+			if (random.nextInt(3) == 0)
+			{
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+			else
+			{
+				assertEquals(expected.put(key, step), map.put(key, step));
+			}
+
+			assertEquals(expected.size(), map.size());
+			if (step % 97 == 0)
+			{
+				for (Map.Entry<Long, Integer> entry : expected.entrySet())
+				{
+					assertEquals(entry.getValue(), map.get(entry.getKey()));
+				}
+				int[] seen = new int[1];
+				map.forEach((k, v) ->
+				{
+					assertEquals(expected.get(k), v);
+					seen[0]++;
+				});
+				assertEquals(expected.size(), seen[0]);
+			}
+		}
+	}
+
+	private static List<Long> keysHomedAt(int mask, int slot, int count)
+	{
+		List<Long> keys = new ArrayList<>();
+		for (long key = 1; keys.size() < count; key++)
+		{
+			if ((LongObjectMap.mix(key) & mask) == slot)
+			{
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.Random;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Scripted, seeded player movement, one location per game tick
+ */
+public class PlayerPathGenerator
+{
+	public enum Scenario
+	{
+		/** Standing still, e.g. idling at the Grand Exchange */
+		IDLE,
+		/** Walking one tile per tick between nearby waypoints */
+		WALK,
+		/** Running two tiles per tick between nearby waypoints */
+		RUN,
+		/** Running with frequent teleports between cities, like PvM trips */
+		TELEPORT,
+	}
+
+	private static final WorldPoint[] TELEPORTS = {
+		new WorldPoint(3222, 3218, 0), // Lumbridge
+		new WorldPoint(3213, 3424, 0), // Varrock
+		new WorldPoint(2965, 3380, 0), // Falador
+		new WorldPoint(3093, 3244, 0), // Draynor
+		new WorldPoint(3164, 3487, 0), // Grand Exchange
+		new WorldPoint(3094, 3491, 0), // Edgeville
+		new WorldPoint(2757, 3477, 0), // Camelot
+		new WorldPoint(2662, 3305, 0), // Ardougne
+	};
+	private static final int WAYPOINT_RANGE = 40;
+
+	private final Scenario scenario;
+	private final Random random;
+
+	private WorldPoint location;
+	private WorldPoint waypoint;
+	private int ticksUntilTeleport;
+
+	public PlayerPathGenerator(Scenario scenario, long seed)
+	{
+		this.scenario = scenario;
+		this.random = new Random(seed);
+		this.location = TELEPORTS[random.nextInt(TELEPORTS.length)];
+		this.waypoint = location;
+		this.ticksUntilTeleport = nextTeleportDelay();
+	}
+
+	public WorldPoint getLocation()
+	{
+		return location;
+	}
+
+	public WorldPoint next()
+	{
+		switch (scenario)
+		{
+			case IDLE:
+				break;
+			case WALK:
+				step(1);
+				break;
+			case RUN:
+				step(2);
+				break;
+			case TELEPORT:
+				if (--ticksUntilTeleport <= 0)
+				{
+					location = TELEPORTS[random.nextInt(TELEPORTS.length)];
+					waypoint = location;
+					ticksUntilTeleport = nextTeleportDelay();
+				}
+				else
+				{
+					step(2);
+				}
+				break;
+		}
+		return location;
+	}
+
+	private void step(int tiles)
+	{
+		if (location.getX() == waypoint.getX() && location.getY() == waypoint.getY())
+		{
+			waypoint = new WorldPoint(
+				location.getX() + random.nextInt(WAYPOINT_RANGE * 2 + 1) - WAYPOINT_RANGE,
+				location.getY() + random.nextInt(WAYPOINT_RANGE * 2 + 1) - WAYPOINT_RANGE,
+				location.getPlane());
+		}
+
+		int dx = Integer.signum(waypoint.getX() - location.getX()) * Math.min(tiles, Math.abs(waypoint.getX() - location.getX()));
+		int dy = Integer.signum(waypoint.getY() - location.getY()) * Math.min(tiles, Math.abs(waypoint.getY() - location.getY()));
+		location = new WorldPoint(location.getX() + dx, location.getY() + dy, location.getPlane());
+	}
+
+	private int nextTeleportDelay()
+	{
+		return 20 + random.nextInt(60);
+	}
+}
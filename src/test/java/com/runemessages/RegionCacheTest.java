@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class RegionCacheTest
+{
+	private static final int WORLDS = 3;
+	private static final int REGIONS = 40;
+
+	/**
+	 * Interleaves region loads, single message adds and deletes, and evictions of regions and
+	 * whole worlds, checking the reverse index and a plain model after every step
+	 */
+	@Test
+	public void indexStaysConsistentUnderInterleavedLoadsAndDeletes()
+	{
+		Random random = new Random(7);
+		RegionCache cache = new RegionCache();
+		Map<Long, List<String>> model = new HashMap<>();
+		int nextId = 0;
+
+		for (int step = 0; step < 20_000; step++)
+		{
+			int worldId = 300 + random.nextInt(WORLDS);
+			int regionId = 12_000 + random.nextInt(REGIONS);
+			long key = RegionCache.key(worldId, regionId);
+
+			switch (random.nextInt(6))
+			{
+				case 0:
+				case 1:
+				{
+					List<MessageData> messages = new ArrayList<>();
+					List<String> ids = new ArrayList<>();
+					for (int i = random.nextInt(8); i > 0; i--)
+					{
+						MessageData message = message("m" + nextId++, worldId, regionId);
+						messages.add(message);
+						ids.add(message.getId());
+					}
+					cache.put(worldId, regionId, messages);
+					model.put(key, ids);
+					break;
+				}
+				case 2:
+				{
+					MessageData message = message("m" + nextId++, worldId, regionId);
+					boolean added = cache.add(worldId, regionId, message);
+					assertEquals(model.containsKey(key), added);
+					if (added)
+					{
+						model.get(key).add(message.getId());
+					}
+					break;
+				}
+				case 3:
+				{
+					// Delete a random cached message, or one that was never cached
+					List<String> ids = model.get(key);
+					if (ids == null || ids.isEmpty())
+					{
+						assertNull(cache.remove("missing" + step));
+						break;
+					}
+					String id = ids.remove(random.nextInt(ids.size()));
+					MessageData removed = cache.remove(id);
+					assertNotNull(removed);
+					assertEquals(id, removed.getId());
+					break;
+				}
+				case 4:
+				{
+					List<MessageData> evicted = cache.evict(worldId, regionId);
+					List<String> ids = model.remove(key);
+					assertEquals(ids == null, evicted == null);
+					break;
+				}
+				default:
+				{
+					if (random.nextInt(20) == 0)
+					{
+						cache.evictWorld(worldId);
+						model.keySet().removeIf(k -> RegionCache.worldId(k) == worldId);
+					}
+					break;
+				}
+			}
+
+			cache.verifyIndex();
+			assertModel(cache, model);
+		}
+	}
+
+	@Test
+	public void findFollowsSwappedMessages()
+	{
+		RegionCache cache = new RegionCache();
+		List<MessageData> messages = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+		{
+			messages.add(message("m" + i, 301, 12850));
+		}
+		cache.put(301, 12850, messages);
+
+		// Removing the first message moves the last one into its slot
+		cache.remove("m0");
+		assertEquals("m4", cache.find("m4").getId());
+		assertNull(cache.find("m0"));
+		cache.verifyIndex();
+	}
+
+	private static void assertModel(RegionCache cache, Map<Long, List<String>> model)
+	{
+		assertEquals(model.size(), cache.size());
+		for (Map.Entry<Long, List<String>> entry : model.entrySet())
+		{
+			List<MessageData> cached = cache.get(RegionCache.worldId(entry.getKey()), RegionCache.regionId(entry.getKey()));
+			assertNotNull(cached);
+			assertEquals(entry.getValue().size(), cached.size());
+			for (String id : entry.getValue())
+			{
+				assertEquals(id, cache.find(id).getId());
+			}
+		}
+	}
+
+	private static MessageData message(String id, int worldId, int regionId)
+	{
+		return MessageData.builder()
+			.id(id)
+			.author("Tester")
+			.message("Hello " + id)
+			.worldId(worldId)
+			.regionId(regionId)
+			.build();
+	}
+}
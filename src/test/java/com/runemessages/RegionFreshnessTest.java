@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class RegionFreshnessTest
+{
+	@Test
+	public void entriesAreCappedOldestFirst()
+	{
+		RegionFreshness freshness = new RegionFreshness();
+		long pendingKey = RegionCache.key(301, 0);
+		freshness.markPending(pendingKey);
+		for (int region = 1; region < RegionFreshness.MAX_ENTRIES * 3; region++)
+		{
+			freshness.fetched(RegionCache.key(301, region), Collections.emptyList(), region);
+			assertTrue(freshness.size() <= RegionFreshness.MAX_ENTRIES);
+		}
+
+		// The most recently fetched regions and the one in flight are remembered
+		long last = RegionCache.key(301, RegionFreshness.MAX_ENTRIES * 3 - 1);
+		assertFalse(freshness.needsRefresh(last, RegionFreshness.MAX_ENTRIES * 3));
+		assertTrue(freshness.isPending(pendingKey));
+		assertTrue(freshness.needsRefresh(RegionCache.key(301, 1), 0));
+	}
+
+	@Test
+	public void evictWorldKeepsOtherWorlds()
+	{
+		RegionFreshness freshness = new RegionFreshness();
+		for (int region = 0; region < 10; region++)
+		{
+			freshness.fetched(RegionCache.key(301, region), Collections.emptyList(), 0);
+			freshness.fetched(RegionCache.key(302, region), Collections.emptyList(), 0);
+		}
+
+		freshness.evictWorld(301);
+
+		assertEquals(10, freshness.size());
+		assertTrue(freshness.needsRefresh(RegionCache.key(301, 5), 0));
+		assertFalse(freshness.needsRefresh(RegionCache.key(302, 5), 0));
+	}
+
+	@Test
+	public void onlyFailedFetchesBackOff()
+	{
+		RegionFreshness freshness = new RegionFreshness();
+		long fetched = RegionCache.key(301, 1);
+		long failed = RegionCache.key(301, 2);
+		freshness.fetched(fetched, Collections.emptyList(), 0);
+		freshness.markPending(failed);
+		freshness.failed(failed, 0);
+
+		// A region fetched fine is not due yet, but must not be held back once evicted
+		assertFalse(freshness.isBackingOff(fetched, 1));
+		assertTrue(freshness.isBackingOff(failed, 1));
+		assertFalse(freshness.isBackingOff(failed, RegionFreshness.MIN_TTL_MILLIS));
+
+		freshness.evict(fetched);
+		assertTrue(freshness.needsRefresh(fetched, 1));
+	}
+}
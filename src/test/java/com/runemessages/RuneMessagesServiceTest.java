@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RuneMessagesServiceTest
+{
+	private static final long TIMEOUT_MILLIS = 5_000;
+	private static final int WORLD = 301;
+	private static final int REGION = 12850;
+
+	private final List<Call> calls = new CopyOnWriteArrayList<>();
+	// Hedges waiting for their delay, sent when a test runs them
+	private final List<Runnable> hedgeTasks = new CopyOnWriteArrayList<>();
+	private final List<Long> hedgeDelays = new CopyOnWriteArrayList<>();
+
+	private LocalMessageApi api;
+	private RuneMessagesMetrics metrics;
+	private RuneMessagesService service;
+
+	@Before
+	public void before() throws IOException
+	{
+		api = new LocalMessageApi(1, 5, 0);
+		api.start();
+
+		// Every call the backend makes, to check which of them were cancelled
+		OkHttpClient httpClient = new OkHttpClient.Builder()
+			.addInterceptor(chain ->
+			{
+				calls.add(chain.call());
+				return chain.proceed(chain.request());
+			})
+			.build();
+		Gson gson = new Gson();
+
+		metrics = new RuneMessagesMetrics();
+		service = new RuneMessagesService(httpClient, gson, metrics);
+		service.setBackend(new HttpMessageBackend(httpClient, gson, metrics, api.getUrl()));
+		service.setHedging(true);
+		service.setHedgeTimer((task, delayMillis) ->
+		{
+			hedgeTasks.add(task);
+			hedgeDelays.add(delayMillis);
+		});
+	}
+
+	@After
+	public void after()
+	{
+		api.releaseRegionRequests();
+		api.stop();
+	}
+
+	@Test
+	public void hedgeWinsAndCancelsTheSlowCall() throws Exception
+	{
+		warmUp();
+		long p95Millis = RuneMessagesMetrics.millis(metrics.getPrimaryLatency(ApiEndpoint.REGION).percentile(0.95));
+
+		// The first call is held by the server, the hedge is answered right away
+		api.holdRegionRequests(1);
+		CompletableFuture<List<MessageData>> result = service.getMessagesForRegion(WORLD, REGION);
+		long sent = System.nanoTime();
+		await(() -> api.getHeldRegionRequests() == 1);
+
+		assertEquals(1, hedgeTasks.size());
+		assertEquals(Math.max(50, p95Millis), (long) hedgeDelays.get(0));
+		long hedged = System.nanoTime();
+		hedgeTasks.get(0).run();
+
+		List<MessageData> messages = result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		assertEquals(api.regionMessages(WORLD, REGION).size(), messages.size());
+
+		await(() -> metrics.getHedgeWins(ApiEndpoint.REGION) == 1 && calls.get(0).isCanceled());
+		assertEquals(1, metrics.getHedges(ApiEndpoint.REGION));
+		assertEquals(1, metrics.getHedgeWins(ApiEndpoint.REGION));
+		assertEquals(2, calls.size());
+		assertTrue(calls.get(0).isCanceled());
+		assertFalse(calls.get(1).isCanceled());
+
+		// The cancelled call counts as slow, the hedge that answered is not measured at all
+		MetricsHistogram primary = metrics.getPrimaryLatency(ApiEndpoint.REGION);
+		await(() -> primary.getCount() == 21);
+		assertEquals(21, primary.getCount());
+		assertTrue(primary.getMax() >= hedged - sent);
+	}
+
+	@Test
+	public void hedgesAreCappedAtAShareOfRequests() throws Exception
+	{
+		warmUp();
+		long cap = (long) Math.ceil(metrics.getPrimaryLatency(ApiEndpoint.REGION).getCount() * 0.1);
+
+		// Nothing is answered until every hedge had its chance, so without the cap each request is sent twice
+		api.holdRegionRequests(Integer.MAX_VALUE);
+		List<CompletableFuture<List<MessageData>>> results = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+		{
+			results.add(service.getMessagesForRegion(WORLD, REGION + i));
+		}
+		assertEquals(10, hedgeTasks.size());
+
+		// Fire every hedge at once, the cap has to hold while they race
+		ExecutorService pool = Executors.newFixedThreadPool(hedgeTasks.size());
+		CountDownLatch go = new CountDownLatch(1);
+		for (Runnable task : hedgeTasks)
+		{
+			pool.execute(() ->
+			{
+				try
+				{
+					go.await();
+					task.run();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		go.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+		assertEquals(cap, metrics.getHedges(ApiEndpoint.REGION));
+
+		api.releaseRegionRequests();
+		for (CompletableFuture<List<MessageData>> result : results)
+		{
+			result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		assertEquals(cap, metrics.getHedges(ApiEndpoint.REGION));
+	}
+
+	@Test
+	public void noHedgingBeforeEnoughSamples() throws Exception
+	{
+		service.getMessagesForRegion(WORLD, REGION).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+		assertTrue(hedgeTasks.isEmpty());
+		assertEquals(0, metrics.getHedges(ApiEndpoint.REGION));
+		assertEquals(1, calls.size());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+		{
+			Thread.sleep(1);
+		}
+	}
+
+	/**
+	 * Unhedged requests so the endpoint has a p95 to hedge at
+	 */
+	private void warmUp() throws Exception
+	{
+		for (int i = 0; i < 20; i++)
+		{
+			service.getMessagesForRegion(WORLD, REGION).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		calls.clear();
+	}
+}
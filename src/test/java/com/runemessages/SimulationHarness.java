@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import com.google.gson.Gson;
+import com.sun.management.ThreadMXBean;
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ClientTick;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.callback.ClientThread;
+import okhttp3.OkHttpClient;
+
+/**
+ * Drives {@link RuneMessagesPlugin} headlessly through thousands of game ticks against a
+ * {@link FakeClient} and a {@link LocalMessageApi}, then reports request counts, spawn
+ * latency, allocation per tick and tick times. Run with {@code ./gradlew simulate}.
+ * <p>
+ * Options, all as {@code --name value}: ticks, scenario (IDLE, WALK, RUN, TELEPORT), seed,
+ * world, latency-ms, slow-percent and slow-ms (extra latency for that share of region
+ * requests), messages-per-region, client-ticks (per game tick), tick-sleep-ms (per client
+ * tick), replay (a recording to answer requests from instead of the local stand-in), and
+ * the regression limits max-tick-us and max-alloc-kb, which make the run fail when
+ * exceeded. Any config item can be overridden with {@code --config.<key>}.
+ */
+public class SimulationHarness
+{
+	private static final double GAME_TICK_SECONDS = 0.6;
+
+	private final Map<String, String> options;
+	private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private final MetricsHistogram gameTickNanos = new MetricsHistogram();
+	private final MetricsHistogram clientTickNanos = new MetricsHistogram();
+	private final MetricsHistogram allocatedBytes = new MetricsHistogram();
+	private final MetricsHistogram spawnLatencyNanos = new MetricsHistogram();
+
+	// Messages within activation range but not yet spawned, with the time they became eligible
+	private final Map<String, Long> eligibleSince = new HashMap<>();
+	private final Set<String> spawned = new HashSet<>();
+	private final Map<Long, List<MessageData>> regionMessages = new HashMap<>();
+
+	private SimulationHarness(Map<String, String> options)
+	{
+		this.options = options;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		Map<String, String> options = parseArgs(args);
+		System.exit(new SimulationHarness(options).run() ? 0 : 1);
+	}
+
+	private boolean run() throws Exception
+	{
+		int ticks = intOption("ticks", 3000);
+		long seed = intOption("seed", 1);
+		int world = intOption("world", 301);
+		int clientTicks = intOption("client-ticks", 10);
+		int tickSleepMillis = intOption("tick-sleep-ms", 1);
+		PlayerPathGenerator.Scenario scenario =
+			PlayerPathGenerator.Scenario.valueOf(options.getOrDefault("scenario", "WALK").toUpperCase());
+
+		LocalMessageApi api = new LocalMessageApi(seed, intOption("messages-per-region", 40), intOption("latency-ms", 20));
+		api.injectLatency(intOption("slow-percent", 0) / 100.0, intOption("slow-ms", 2000));
+		api.start();
+
+		PlayerPathGenerator path = new PlayerPathGenerator(scenario, seed);
+		FakeClient fakeClient = new FakeClient(world, path.getLocation());
+		RuneMessagesConfig config = config(options);
+		RuneMessagesMetrics metrics = new RuneMessagesMetrics();
+		OkHttpClient httpClient = new OkHttpClient();
+		Gson gson = new Gson();
+		RuneMessagesService service = new RuneMessagesService(httpClient, gson, metrics);
+		String replay = options.get("replay");
+		service.setBackend(replay != null
+			? FileMessageBackend.replay(gson, new File(replay))
+			: new HttpMessageBackend(httpClient, gson, metrics, api.getUrl()));
+		ClientThreadScheduler scheduler = new ClientThreadScheduler(config, metrics);
+
+		Map<Class<?>, Object> bindings = new HashMap<>();
+		bindings.put(net.runelite.api.Client.class, fakeClient.getClient());
+		bindings.put(ClientThread.class, new FakeClientThread());
+		bindings.put(ClientThreadScheduler.class, scheduler);
+		bindings.put(RuneMessagesConfig.class, config);
+		bindings.put(RuneMessagesService.class, service);
+		bindings.put(RuneMessagesMetrics.class, metrics);
+		bindings.put(MemoryBudget.class, new MemoryBudget());
+
+		RuneMessagesPlugin plugin = new RuneMessagesPlugin();
+		inject(plugin, bindings);
+		// Keep the votes, reports and local messages of the simulated player out of the real profile
+		plugin.setDataDirectory(Files.createTempDirectory("runemessages-sim").toFile());
+		plugin.initState();
+
+		System.out.printf("Simulating %d ticks, scenario %s, seed %d, against %s%n", ticks, scenario, seed,
+			replay != null ? replay : api.getUrl());
+
+		GameTick gameTick = new GameTick();
+		ClientTick clientTick = new ClientTick();
+		long threadId = Thread.currentThread().getId();
+		long started = System.nanoTime();
+		try
+		{
+			for (int tick = 0; tick < ticks; tick++)
+			{
+				fakeClient.tick(path.next());
+
+				long allocated = threads.getThreadAllocatedBytes(threadId);
+				long start = System.nanoTime();
+				plugin.onGameTick(gameTick);
+				gameTickNanos.record(System.nanoTime() - start);
+
+				for (int i = 0; i < clientTicks; i++)
+				{
+					start = System.nanoTime();
+					plugin.onClientTick(clientTick);
+					clientTickNanos.record(System.nanoTime() - start);
+					allocated -= threads.getThreadAllocatedBytes(threadId);
+					if (tickSleepMillis > 0)
+					{
+						Thread.sleep(tickSleepMillis);
+					}
+					allocated += threads.getThreadAllocatedBytes(threadId);
+				}
+				allocatedBytes.record(threads.getThreadAllocatedBytes(threadId) - allocated);
+
+				trackSpawns(plugin, fakeClient, api, config.activationRadius());
+			}
+		}
+		finally
+		{
+			scheduler.clear();
+			api.stop();
+		}
+
+		return report(ticks, System.nanoTime() - started, api, metrics, fakeClient);
+	}
+
+	private void trackSpawns(RuneMessagesPlugin plugin, FakeClient fakeClient, LocalMessageApi api, int radius)
+	{
+		long now = System.nanoTime();
+		WorldPoint player = fakeClient.getLocation();
+		int world = fakeClient.getWorld();
+
+		for (int regionId : fakeClient.getClient().getMapRegions())
+		{
+			if (api.getLastRequestNanos(world, regionId) < 0)
+			{
+				continue;
+			}
+
+			List<MessageData> messages = regionMessages.computeIfAbsent(RegionCache.key(world, regionId),
+				k -> api.regionMessages(world, regionId));
+			for (MessageData message : messages)
+			{
+				if (spawned.contains(message.getId()))
+				{
+					continue;
+				}
+				int distance = Math.max(Math.abs(message.getX() - player.getX()), Math.abs(message.getY() - player.getY()));
+				if (distance <= radius)
+				{
+					eligibleSince.putIfAbsent(message.getId(), now);
+				}
+				else
+				{
+					eligibleSince.remove(message.getId());
+				}
+			}
+		}
+
+		SceneSnapshot scene = plugin.getSnapshot();
+		for (int i = 0; i < scene.size(); i++)
+		{
+			MessageData message = scene.get(i);
+			if (spawned.add(message.getId()))
+			{
+				Long since = eligibleSince.remove(message.getId());
+				if (since != null)
+				{
+					spawnLatencyNanos.record(now - since);
+				}
+			}
+		}
+	}
+
+	private boolean report(int ticks, long elapsedNanos, LocalMessageApi api, RuneMessagesMetrics metrics, FakeClient fakeClient)
+	{
+		double gameMinutes = ticks * GAME_TICK_SECONDS / 60;
+		System.out.printf("%nRan %d game ticks (%.1f game minutes) in %.1fs, %d scene loads%n",
+			ticks, gameMinutes, elapsedNanos / 1e9, fakeClient.getSceneLoads());
+
+		System.out.printf("Requests: %d total, %.1f per game minute%n", api.getTotalRequests(), api.getTotalRequests() / gameMinutes);
+		api.getRequestCounts().forEach((endpoint, count) -> System.out.printf("  %-10s %d%n", endpoint, count));
+
+		System.out.printf("Spawns: %d markers, latency p50 %s ms, p95 %s ms, max %s ms%n",
+			spawnLatencyNanos.getCount(),
+			RuneMessagesMetrics.millis(spawnLatencyNanos.percentile(0.5)),
+			RuneMessagesMetrics.millis(spawnLatencyNanos.percentile(0.95)),
+			RuneMessagesMetrics.millis(spawnLatencyNanos.getMax()));
+		System.out.printf("Game tick: p50 %s us, p99 %s us, max %s us%n",
+			RuneMessagesMetrics.micros(gameTickNanos.percentile(0.5)),
+			RuneMessagesMetrics.micros(gameTickNanos.percentile(0.99)),
+			RuneMessagesMetrics.micros(gameTickNanos.getMax()));
+		System.out.printf("Client tick: p50 %s us, p99 %s us, max %s us%n",
+			RuneMessagesMetrics.micros(clientTickNanos.percentile(0.5)),
+			RuneMessagesMetrics.micros(clientTickNanos.percentile(0.99)),
+			RuneMessagesMetrics.micros(clientTickNanos.getMax()));
+		System.out.printf("Allocation per game tick: mean %d KB, p99 %d KB, max %d KB%n",
+			(long) allocatedBytes.getMean() / 1024, allocatedBytes.percentile(0.99) / 1024, allocatedBytes.getMax() / 1024);
+		System.out.println(metrics.summary());
+
+		boolean passed = true;
+		long maxTickMicros = intOption("max-tick-us", 0);
+		long worstTick = Math.max(gameTickNanos.getMax(), clientTickNanos.getMax()) / 1000;
+		if (maxTickMicros > 0 && worstTick > maxTickMicros)
+		{
+			System.out.printf("FAIL: max tick time %d us exceeds %d us%n", worstTick, maxTickMicros);
+			passed = false;
+		}
+		long maxAllocKb = intOption("max-alloc-kb", 0);
+		if (maxAllocKb > 0 && allocatedBytes.getMax() / 1024 > maxAllocKb)
+		{
+			System.out.printf("FAIL: allocation per tick %d KB exceeds %d KB%n", allocatedBytes.getMax() / 1024, maxAllocKb);
+			passed = false;
+		}
+		return passed;
+	}
+
+	private int intOption(String name, int defaultValue)
+	{
+		String value = options.get(name);
+		return value != null ? Integer.parseInt(value) : defaultValue;
+	}
+
+	static Map<String, String> parseArgs(String[] args)
+	{
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (!args[i].startsWith("--"))
+			{
+				throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		return options;
+	}
+
+	/**
+	 * Config returning each item's default, with {@code config.<key>} options taking precedence.
+	 * The simulated player is registered up front so no registration request is made.
+	 */
+	static RuneMessagesConfig config(Map<String, String> options)
+	{
+		Map<String, String> overrides = new HashMap<>();
+		overrides.put("apiKey", "sim-key");
+		overrides.put("registeredUsername", "SimPlayer");
+		options.forEach((name, value) ->
+		{
+			if (name.startsWith("config."))
+			{
+				overrides.put(name.substring("config.".length()), value);
+			}
+		});
+
+		// Parsed up front, so a misspelt item or a bad value fails before the run starts
+		Map<String, Object> values = new HashMap<>();
+		overrides.forEach((name, value) ->
+		{
+			Method item;
+			try
+			{
+				item = RuneMessagesConfig.class.getMethod(name);
+			}
+			catch (NoSuchMethodException e)
+			{
+				throw new IllegalArgumentException("Unknown config item " + name, e);
+			}
+			values.put(name, parseConfigValue(item, value));
+		});
+
+		return FakeClient.proxy(RuneMessagesConfig.class, (proxy, method, args) ->
+		{
+			Object value = values.get(method.getName());
+			Class<?> type = method.getReturnType();
+			if (value != null)
+			{
+				return value;
+			}
+			if (method.isDefault())
+			{
+				return MethodHandles.privateLookupIn(RuneMessagesConfig.class, MethodHandles.lookup())
+					.unreflectSpecial(method, RuneMessagesConfig.class)
+					.bindTo(proxy)
+					.invokeWithArguments(args != null ? args : new Object[0]);
+			}
+			return FakeClient.defaultValue(type);
+		});
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object parseConfigValue(Method item, String value)
+	{
+		Class<?> type = item.getReturnType();
+		if (type == String.class)
+		{
+			return value;
+		}
+		if (type == int.class)
+		{
+			return Integer.parseInt(value);
+		}
+		if (type == long.class)
+		{
+			return Long.parseLong(value);
+		}
+		if (type == double.class)
+		{
+			return Double.parseDouble(value);
+		}
+		if (type == boolean.class)
+		{
+			if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false"))
+			{
+				throw new IllegalArgumentException("Expected true or false for " + item.getName() + ", got " + value);
+			}
+			return Boolean.parseBoolean(value);
+		}
+		if (type.isEnum())
+		{
+			return Enum.valueOf((Class<? extends Enum>) type, value.toUpperCase());
+		}
+		throw new IllegalArgumentException("Config item " + item.getName() + " of type "
+			+ type.getSimpleName() + " can not be set from the command line");
+	}
+
+	/**
+	 * Set the target's {@code @Inject} fields from the bindings, leaving the rest null
+	 */
+	static void inject(Object target, Map<Class<?>, Object> bindings) throws IllegalAccessException
+	{
+		for (Field field : target.getClass().getDeclaredFields())
+		{
+			boolean injected = false;
+			for (Annotation annotation : field.getAnnotations())
+			{
+				injected |= annotation.annotationType().getSimpleName().equals("Inject");
+			}
+			Object value = bindings.get(field.getType());
+			if (injected && value != null)
+			{
+				field.setAccessible(true);
+				field.set(target, value);
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2025, LordStrange
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.runemessages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class SpawnQueueTest
+{
+	@Test
+	public void ownMessagesSpawnFirst()
+	{
+		SpawnQueue queue = new SpawnQueue();
+		queue.add(message("near", 1), 1, false);
+		queue.add(message("own-far", 1), 40, true);
+		queue.add(message("nearer", 1), 0, false);
+		queue.add(message("own-near", 1), 10, true);
+
+		assertEquals("own-near", queue.poll().getId());
+		assertEquals("own-far", queue.poll().getId());
+		assertEquals("nearer", queue.poll().getId());
+		assertEquals("near", queue.poll().getId());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void cancelRegionKeepsOtherRegions()
+	{
+		SpawnQueue queue = new SpawnQueue();
+		queue.add(message("a", 1), 0, false);
+		queue.add(message("b", 2), 0, false);
+		queue.add(message("c", 1), 0, true);
+
+		assertEquals(2, queue.cancelRegion(301, 1));
+		assertEquals("b", queue.poll().getId());
+		assertNull(queue.poll());
+	}
+
+	private static MessageData message(String id, int regionId)
+	{
+		return MessageData.builder().id(id).worldId(301).regionId(regionId).build();
+	}
+}